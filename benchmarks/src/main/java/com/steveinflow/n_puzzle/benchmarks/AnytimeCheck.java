@@ -0,0 +1,77 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.io.File;
+
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Node;
+import com.steveinflow.n_puzzle.Solver.Solver;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseHeuristic;
+
+/**
+ * Checks that the anytime search, given as long as it needs, finds solutions as
+ * short as IDA*'s. Both search with the pattern databases, over random walks from
+ * the solved board, the same every time for the same seed. Prints each board the
+ * two disagree on, and exits with 1 if there are any.
+ *
+ *     java -cp benchmarks.jar com.steveinflow.n_puzzle.benchmarks.AnytimeCheck [boards] [seed]
+ *
+ * Properties:
+ * - n_puzzle.walk: how many moves each walk makes, 40 by default
+ * - n_puzzle.tables: a directory of pattern databases to map rather than build.
+ *   It's only read: missing ones are built in memory.
+ */
+public class AnytimeCheck {
+
+    public static final int DEFAULT_BOARDS = 300;
+
+    private static final int[] DIFFICULTIES = { 3, 4 };
+
+    /**@return the solution's length, or -1 if there isn't one*/
+    private static int solve(Solver.Algorithm algorithm, Heuristic heuristic, GameState board){
+        Node solution = Solver.create(algorithm, Unmonitored.INSTANCE, heuristic, board,
+                new FrozenCells(board.getNumDivisions())).solveGoal();
+        return (solution == null) ? -1 : solution.getCost();
+    }
+
+    public static void main(String[] args){
+        if(args.length > 2){
+            System.err.println("Usage: AnytimeCheck [boards] [seed]");
+            System.exit(1);
+        }
+
+        String tables = System.getProperty("n_puzzle.tables");
+        if(tables != null){
+            PatternDatabaseHeuristic.setTableDirectory(new File(tables));
+        }
+
+        int count = (args.length >= 1) ? Integer.parseInt(args[0]) : DEFAULT_BOARDS;
+        long seed = (args.length == 2) ? Long.parseLong(args[1]) : CorpusGenerator.DEFAULT_SEED;
+        int walkLength = Integer.getInteger("n_puzzle.walk", 40);
+        CorpusGenerator generator = new CorpusGenerator(seed);
+
+        int mismatches = 0;
+        for(int numDivisions : DIFFICULTIES){
+            Heuristic heuristic = new PatternDatabaseHeuristic(numDivisions);
+            heuristic.prepare();
+
+            for(int i = 0; i < count; i++){
+                GameState board = generator.walk(numDivisions, walkLength);
+                int anytime = solve(Solver.Algorithm.ANYTIME_A_STAR, heuristic, board);
+                int optimal = solve(Solver.Algorithm.IDA_STAR, heuristic, board);
+
+                if(anytime != optimal){
+                    System.err.println(String.format("%s: anytime %s moves, IDA* %s moves",
+                            board.toCSV(), anytime, optimal));
+                    mismatches++;
+                }
+            }
+            System.out.println(String.format("%s x %s: %s boards checked",
+                    numDivisions, numDivisions, count));
+        }
+
+        System.out.println(mismatches + " boards where the anytime search wasn't optimal");
+        if(mismatches > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so each result comes with its
+ * allocation rate (gc.alloc.rate.norm is bytes allocated per call) alongside the
+ * calls per second. Takes the usual JMH options, e.g. a benchmark name pattern or
+ * -p numDivisions=4.
+ *
+ * The n_puzzle.tables property is passed on to the forked JVMs (see Boards).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(new CommandLineOptions(args));
+        options.addProfiler(GCProfiler.class);
+
+        String tables = System.getProperty("n_puzzle.tables");
+        if(tables != null){
+            options.jvmArgsAppend("-Dn_puzzle.tables=" + tables);
+        }
+
+        Options built = options.build();
+        new Runner(built).run();
+    }
+}
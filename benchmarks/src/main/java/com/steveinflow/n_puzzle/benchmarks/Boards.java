@@ -0,0 +1,50 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.io.File;
+import java.util.Random;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseHeuristic;
+
+/**
+ * The boards every benchmark runs on. They're shuffled the way the game shuffles
+ * a new puzzle, from a fixed seed for each board size, so every run (and every
+ * benchmark) sees the same boards.
+ *
+ * Building the 4 x 4 pattern databases takes a while. Set the n_puzzle.tables
+ * property to a directory of them (see PatternDatabaseBuilder) to map them instead.
+ * The directory is only read: any that are missing are still built, in memory.
+ */
+public class Boards {
+
+    /**Boards of each size in the corpus*/
+    public static final int CORPUS_SIZE = 16;
+
+    private static final long SEED = 42L;
+
+    static{
+        String tables = System.getProperty("n_puzzle.tables");
+        if(tables != null){
+            PatternDatabaseHeuristic.setTableDirectory(new File(tables));
+        }
+    }
+
+    private Boards(){
+    }
+
+    /**@return the corpus for boards of this size*/
+    public static GameState[] corpus(int numDivisions){
+        return shuffled(numDivisions, CORPUS_SIZE);
+    }
+
+    /**@return count boards shuffled from the seed for this board size*/
+    public static GameState[] shuffled(int numDivisions, int count){
+        Random random = new Random(SEED * 31 + numDivisions);
+        GameState[] boards = new GameState[count];
+
+        for(int i = 0; i < count; i++){
+            boards[i] = GameState.shuffle(GameState.buildDefaultShuffle(numDivisions), random);
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,136 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+
+/**
+ * A list of named boards to solve, read from and written to a versioned text file.
+ *
+ * The first line that isn't blank or a # comment is the header, "n_puzzle.corpus"
+ * and the format version. Every line after it is one board:
+ *
+ *     name divisions kind csv
+ *
+ * The kind says where the board came from, e.g. "shuffled" or "optimal=31", and
+ * the csv is the board as written by GameState.toCSV(), with -1 for the blank tile.
+ */
+public class Corpus {
+
+    public static final String HEADER = "n_puzzle.corpus";
+    public static final int VERSION = 1;
+
+    /**One board in the corpus*/
+    public static class Instance {
+        public final String name;
+        public final int numDivisions;
+        public final String kind;
+        public final GameState board;
+
+        public Instance(String name, String kind, GameState board){
+            this.name = name;
+            this.numDivisions = board.getNumDivisions();
+            this.kind = kind;
+            this.board = board;
+        }
+    }
+
+    private final List<Instance> mInstances = new ArrayList<Instance>();
+
+    public void add(Instance instance){
+        mInstances.add(instance);
+    }
+
+    public List<Instance> getInstances(){
+        return mInstances;
+    }
+
+    public void write(File file) throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try{
+            writer.println("# Boards to solve: name, divisions, where the board came from,");
+            writer.println("# and the board's tiles row by row (-1 is the blank tile).");
+            writer.println(HEADER + " " + VERSION);
+            for(Instance instance : mInstances){
+                writer.println(instance.name + " " + instance.numDivisions + " " + instance.kind
+                        + " " + instance.board.toCSV());
+            }
+        }
+        finally{
+            writer.close();
+        }
+    }
+
+    public static Corpus read(File file) throws IOException {
+        Corpus corpus = new Corpus();
+
+        for(String[] fields : readLines(file, HEADER, VERSION)){
+            if(fields.length != 4){
+                throw new IOException("Expected name, divisions, kind and csv: " + join(fields));
+            }
+
+            GameState board = GameState.fromCSV(fields[3]);
+            if(board.getNumDivisions() != Integer.parseInt(fields[1])){
+                throw new IOException(fields[0] + " doesn't have " + fields[1] + " divisions");
+            }
+            corpus.add(new Instance(fields[0], fields[2], board));
+        }
+        return corpus;
+    }
+
+    /**Read the lines after a versioned header, split on whitespace. Blank lines and
+     * # comments are skipped.*/
+    static List<String[]> readLines(File file, String header, int version) throws IOException {
+        List<String[]> lines = new ArrayList<String[]>();
+        boolean readHeader = false;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try{
+            String line;
+            while((line = reader.readLine()) != null){
+                line = line.trim();
+                if(line.length() == 0 || line.startsWith("#")) continue;
+
+                String[] fields = line.split("\\s+");
+                if(!readHeader){
+                    if(fields.length != 2 || !fields[0].equals(header)){
+                        throw new IOException(file + " doesn't start with a " + header + " header");
+                    }
+                    if(Integer.parseInt(fields[1]) != version){
+                        throw new IOException(String.format("%s is version %s, only version %s can be read",
+                                file, fields[1], version));
+                    }
+                    readHeader = true;
+                    continue;
+                }
+                lines.add(fields);
+            }
+        }
+        finally{
+            reader.close();
+        }
+
+        if(!readHeader){
+            throw new IOException(file + " is empty");
+        }
+        return lines;
+    }
+
+    private static String join(String[] fields){
+        StringBuilder builder = new StringBuilder();
+        for(String field : fields){
+            if(builder.length() > 0) builder.append(' ');
+            builder.append(field);
+        }
+        return builder.toString();
+    }
+}
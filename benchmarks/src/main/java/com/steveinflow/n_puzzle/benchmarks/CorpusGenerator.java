@@ -0,0 +1,215 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
+import com.steveinflow.n_puzzle.Solver.Node;
+import com.steveinflow.n_puzzle.Solver.Solver;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseHeuristic;
+
+/**
+ * Writes a corpus of boards for CorpusRunner, the same every time for the same seed.
+ *
+ * For each difficulty (3 x 3, 4 x 4 and 5 x 5) there are boards shuffled the way
+ * the game shuffles a new puzzle. Then there are hard boards, each a known number
+ * of moves from solved in the fewest moves:
+ * - 3 x 3 boards are picked from every board that far from solved, found by a
+ *   breadth first search out from the solved board.
+ * - Bigger boards are random walks from the solved board, kept if IDA* with the
+ *   pattern databases finds the walk can't be done in fewer moves.
+ *
+ *     java -cp benchmarks.jar com.steveinflow.n_puzzle.benchmarks.CorpusGenerator <file> [seed]
+ *
+ * Set the n_puzzle.tables property to a directory of pattern databases to map them
+ * rather than build them. It's only read: missing ones are built in memory.
+ */
+public class CorpusGenerator {
+
+    public static final long DEFAULT_SEED = 42L;
+
+    /**Shuffled boards for each difficulty*/
+    public static int SHUFFLES_PER_DIFFICULTY = 8;
+    private static final int[] DIFFICULTIES = { 3, 4, 5 };
+    private static final String[] DIFFICULTY_NAMES = { "easy", "medium", "hard" };
+
+    /**Hard boards: divisions, moves from solved, and how many*/
+    private static final int[][] HARD_BOARDS = {
+        { 3, 31, 2 },
+        { 3, 28, 4 },
+        { 4, 48, 3 },
+    };
+
+    /**Breadth first search covers every board up to this size*/
+    public static final int MAX_SEARCH_DIVISIONS = 3;
+
+    private final Random mRandom;
+
+    public CorpusGenerator(long seed){
+        mRandom = new Random(seed);
+    }
+
+    public Corpus generate(){
+        Corpus corpus = new Corpus();
+
+        for(int i = 0; i < DIFFICULTIES.length; i++){
+            int numDivisions = DIFFICULTIES[i];
+            for(int j = 0; j < SHUFFLES_PER_DIFFICULTY; j++){
+                GameState board = GameState.shuffle(GameState.buildDefaultShuffle(numDivisions), mRandom);
+                corpus.add(new Corpus.Instance(String.format("%s-%02d", DIFFICULTY_NAMES[i], j),
+                        "shuffled", board));
+            }
+        }
+
+        for(int[] hard : HARD_BOARDS){
+            int numDivisions = hard[0];
+            int distance = hard[1];
+            List<GameState> boards = atDistance(numDivisions, distance, hard[2]);
+
+            for(int j = 0; j < boards.size(); j++){
+                corpus.add(new Corpus.Instance(
+                        String.format("optimal-%sx%s-%s-%02d", numDivisions, numDivisions, distance, j),
+                        CorpusRunner.OPTIMAL_KIND + distance, boards.get(j)));
+            }
+        }
+        return corpus;
+    }
+
+    /**@return count boards that take exactly distance moves to solve*/
+    public List<GameState> atDistance(int numDivisions, int distance, int count){
+        if(numDivisions <= MAX_SEARCH_DIVISIONS){
+            return pick(layerAt(numDivisions, distance), count);
+        }
+        if(!PatternDatabaseHeuristic.supports(numDivisions)){
+            throw new IllegalArgumentException(
+                    "Can't measure distances on a board with " + numDivisions + " divisions");
+        }
+
+        List<GameState> boards = new ArrayList<GameState>();
+        //a walk's length and its fewest moves are both odd or both even
+        int walkLength = distance;
+        while(boards.size() < count){
+            GameState board = walk(numDivisions, walkLength);
+            int optimal = optimalDistance(board);
+
+            if(optimal == distance){
+                boards.add(board);
+                walkLength = distance;
+            }
+            else{
+                //the walk doubled back on itself, so try a longer one
+                walkLength += 2;
+            }
+        }
+        return boards;
+    }
+
+    /**@return every board exactly distance moves from solved*/
+    private static List<GameState> layerAt(int numDivisions, int distance){
+        HashSet<GameState> previous = new HashSet<GameState>();
+        HashSet<GameState> layer = new HashSet<GameState>();
+        layer.add(new GameState(numDivisions));
+
+        for(int depth = 0; depth < distance && !layer.isEmpty(); depth++){
+            HashSet<GameState> next = new HashSet<GameState>();
+            for(GameState state : layer){
+                int moves = state.getLegalMoveFlags(0L);
+                for(GameState.Direction move : MoveTable.MOVE_ORDER){
+                    if(!MoveTable.hasMove(moves, move)) continue;
+
+                    GameState successor = state.makeMove(move);
+                    if(!previous.contains(successor) && !layer.contains(successor)){
+                        next.add(successor);
+                    }
+                }
+            }
+            previous = layer;
+            layer = next;
+        }
+
+        if(layer.isEmpty()){
+            throw new IllegalArgumentException(String.format(
+                    "No %s x %s board is %s moves from solved", numDivisions, numDivisions, distance));
+        }
+        return new ArrayList<GameState>(layer);
+    }
+
+    /**@return count of the boards, picked at random in a repeatable order*/
+    private List<GameState> pick(List<GameState> boards, int count){
+        //sort first, since the order of a HashSet isn't fixed
+        String[] csvs = new String[boards.size()];
+        for(int i = 0; i < csvs.length; i++){
+            csvs[i] = boards.get(i).toCSV();
+        }
+        Arrays.sort(csvs);
+
+        List<GameState> picked = new ArrayList<GameState>();
+        for(int i = 0; i < count && i < csvs.length; i++){
+            //the rest of the array is still unpicked
+            int index = i + mRandom.nextInt(csvs.length - i);
+            String csv = csvs[index];
+            csvs[index] = csvs[i];
+            csvs[i] = csv;
+            picked.add(GameState.fromCSV(csv));
+        }
+        return picked;
+    }
+
+    /**@return the board after a random walk from solved that never undoes its last move*/
+    GameState walk(int numDivisions, int length){
+        GameState board = new GameState(numDivisions);
+        GameState.Direction lastMove = null;
+
+        for(int i = 0; i < length; i++){
+            int moves = board.getLegalMoveFlags(0L);
+            if(lastMove != null){
+                moves &= ~(1 << MoveTable.getOpposite(lastMove).ordinal());
+            }
+
+            lastMove = MoveTable.getMove(moves, mRandom.nextInt(MoveTable.countMoves(moves)));
+            board = board.makeMove(lastMove);
+        }
+        return board;
+    }
+
+    /**@return the fewest moves that solve the board*/
+    private static int optimalDistance(GameState board){
+        int numDivisions = board.getNumDivisions();
+        Heuristic heuristic = new PatternDatabaseHeuristic(numDivisions);
+        heuristic.prepare();
+
+        Node solution = Solver.create(Solver.Algorithm.IDA_STAR, Unmonitored.INSTANCE, heuristic, board,
+                new FrozenCells(numDivisions)).solveGoal();
+        if(solution == null){
+            throw new IllegalStateException("IDA* found no solution for " + board.toCSV());
+        }
+        return solution.getCost();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1 || args.length > 2){
+            System.err.println("Usage: CorpusGenerator <file> [seed]");
+            System.exit(1);
+        }
+
+        String tables = System.getProperty("n_puzzle.tables");
+        if(tables != null){
+            PatternDatabaseHeuristic.setTableDirectory(new File(tables));
+        }
+
+        long seed = (args.length == 2) ? Long.parseLong(args[1]) : DEFAULT_SEED;
+        Corpus corpus = new CorpusGenerator(seed).generate();
+
+        File file = new File(args[0]);
+        corpus.write(file);
+        System.out.println(String.format("Wrote %s boards to %s", corpus.getInstances().size(), file));
+    }
+}
@@ -0,0 +1,257 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.HeadlessSolver;
+import com.steveinflow.n_puzzle.Solver.MacroCache;
+import com.steveinflow.n_puzzle.Solver.MoveQueue;
+import com.steveinflow.n_puzzle.Solver.OptimalSolutionStrategy;
+import com.steveinflow.n_puzzle.Solver.SolverMetrics;
+import com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseHeuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.WalkingDistanceHeuristic;
+
+/**
+ * Solves every board in a corpus (see CorpusGenerator) the way the game would, and
+ * prints for each one the nodes checked, the most visited states any goal's search
+ * held, the wall time and the solution's length.
+ *
+ * The results are printed in a versioned format that can be saved and passed back
+ * in as a baseline. Against a baseline, the run fails (exits with 1) if any board
+ * checks more nodes, holds more visited states or takes more moves than the
+ * threshold allows, takes too much longer, or isn't solved when it was before.
+ * With or without a baseline, the run fails if a solution doesn't solve its board,
+ * or if an optimal solve of a board with a known optimum (kind "optimal=N") takes
+ * more than N moves.
+ *
+ *     java -cp benchmarks.jar com.steveinflow.n_puzzle.benchmarks.CorpusRunner <corpus> [baseline]
+ *
+ * Properties:
+ * - n_puzzle.threshold: how much bigger nodes, visited states and moves may get, 0.1 by default
+ * - n_puzzle.time_threshold: how much longer a board may take, 0.5 by default
+ * - n_puzzle.runs: solve each board this many times and take the median time, 3 by default
+ * - n_puzzle.optimal: solve boards with pattern databases optimally, true by default.
+ *   An optimal search that runs out of time stops early, so its nodes depend on
+ *   the machine's speed.
+ * - n_puzzle.tables: a directory of pattern databases to map rather than build.
+ *   It's only read: missing ones are built in memory.
+ * - n_puzzle.metrics: a file to write the SolverMetrics for the run to, as JSON
+ */
+public class CorpusRunner {
+
+    public static final String HEADER = "n_puzzle.results";
+    public static final int VERSION = 1;
+
+    /**The kind of a board whose optimal solution length is known, followed by that length*/
+    public static final String OPTIMAL_KIND = "optimal=";
+
+    /**Times shorter than this are too noisy to compare*/
+    public static long MIN_COMPARED_MILLIS = 50;
+
+    /**What solving one board took*/
+    public static class Result {
+        public final String name;
+        public final long nodesChecked;
+        public final long peakVisitedStates;
+        public final long millis;
+        /**The solution's length, or -1 if the board wasn't solved*/
+        public final int moves;
+        /**What's wrong with the solution, or null if nothing is known to be*/
+        public final String invalid;
+
+        public Result(String name, long nodesChecked, long peakVisitedStates, long millis, int moves){
+            this(name, nodesChecked, peakVisitedStates, millis, moves, null);
+        }
+
+        public Result(String name, long nodesChecked, long peakVisitedStates, long millis, int moves,
+                String invalid){
+            this.name = name;
+            this.nodesChecked = nodesChecked;
+            this.peakVisitedStates = peakVisitedStates;
+            this.millis = millis;
+            this.moves = moves;
+            this.invalid = invalid;
+        }
+
+        @Override
+        public String toString(){
+            return name + " " + nodesChecked + " " + peakVisitedStates + " " + millis + " " + moves;
+        }
+    }
+
+    private final double mThreshold;
+    private final double mTimeThreshold;
+    private final int mRuns;
+
+    public CorpusRunner(double threshold, double timeThreshold, int runs){
+        mThreshold = threshold;
+        mTimeThreshold = timeThreshold;
+        mRuns = runs;
+    }
+
+    public Result solve(Corpus.Instance instance){
+        long[] times = new long[mRuns];
+        HeadlessSolver solver = null;
+        MoveQueue moves = null;
+
+        for(int run = 0; run < mRuns; run++){
+            //stored solutions from earlier boards would make this one look faster
+            MacroCache.getCache().clear();
+
+            solver = new HeadlessSolver(instance.numDivisions);
+            long startTime = System.nanoTime();
+            moves = solver.solve(instance.board);
+            times[run] = (System.nanoTime() - startTime) / 1000000;
+        }
+        Arrays.sort(times);
+
+        return new Result(instance.name, solver.getNodesChecked(), solver.getPeakVisitedStates(),
+                times[mRuns / 2], (moves == null) ? -1 : moves.size(), check(instance, moves));
+    }
+
+    /**@return what's wrong with the solution to the board, or null if nothing is known to be*/
+    static String check(Corpus.Instance instance, MoveQueue moves){
+        if(moves == null) return null;
+
+        GameState gameState = instance.board;
+        for(GameState.Direction move : moves){
+            gameState = gameState.makeMove(move);
+            if(gameState == null) return " moves off the board;";
+        }
+        if(!gameState.equals(new GameState(instance.numDivisions))){
+            return " doesn't solve the board;";
+        }
+
+        if(instance.kind.startsWith(OPTIMAL_KIND) && HeadlessSolver.SOLVE_OPTIMALLY
+                && OptimalSolutionStrategy.supports(instance.numDivisions)){
+            int optimum = Integer.parseInt(instance.kind.substring(OPTIMAL_KIND.length()));
+            if(moves.size() > optimum){
+                return String.format(" moves %s, optimal is %s;", moves.size(), optimum);
+            }
+        }
+        return null;
+    }
+
+    /**Build any tables the optimal search will use, so the first board doesn't pay
+     * for them. Boards it doesn't solve don't use them.*/
+    private static void prepareTables(Corpus corpus){
+        if(!HeadlessSolver.SOLVE_OPTIMALLY) return;
+
+        for(Corpus.Instance instance : corpus.getInstances()){
+            if(!OptimalSolutionStrategy.supports(instance.numDivisions)) continue;
+
+            if(PatternDatabaseHeuristic.supports(instance.numDivisions)){
+                new PatternDatabaseHeuristic(instance.numDivisions).prepare();
+            }
+            if(WalkingDistanceHeuristic.supports(instance.numDivisions)){
+                new WalkingDistanceHeuristic(instance.numDivisions).prepare();
+            }
+        }
+    }
+
+    /**@return a description of each way the result is worse than the baseline*/
+    public String compare(Result result, Result baseline){
+        StringBuilder regressions = new StringBuilder();
+
+        if(result.moves < 0){
+            if(baseline.moves >= 0) regressions.append(" no solution;");
+            return regressions.toString();
+        }
+
+        compare(regressions, "nodes", result.nodesChecked, baseline.nodesChecked, mThreshold);
+        compare(regressions, "visited states", result.peakVisitedStates, baseline.peakVisitedStates,
+                mThreshold);
+        compare(regressions, "moves", result.moves, baseline.moves, mThreshold);
+        if(Math.max(result.millis, baseline.millis) >= MIN_COMPARED_MILLIS){
+            compare(regressions, "milliseconds", result.millis, baseline.millis, mTimeThreshold);
+        }
+        return regressions.toString();
+    }
+
+    private static void compare(StringBuilder regressions, String metric, long value, long baseline,
+            double threshold){
+        if(value > baseline * (1 + threshold)){
+            regressions.append(String.format(" %s %s, was %s;", metric, value, baseline));
+        }
+    }
+
+    static Map<String, Result> readResults(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<String, Result>();
+
+        for(String[] fields : Corpus.readLines(file, HEADER, VERSION)){
+            if(fields.length != 5){
+                throw new IOException("Expected name, nodes, visited states, milliseconds and moves in "
+                        + file);
+            }
+            results.put(fields[0], new Result(fields[0], Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3]), Integer.parseInt(fields[4])));
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1 || args.length > 2){
+            System.err.println("Usage: CorpusRunner <corpus> [baseline]");
+            System.exit(1);
+        }
+
+        String tables = System.getProperty("n_puzzle.tables");
+        if(tables != null){
+            PatternDatabaseHeuristic.setTableDirectory(new File(tables));
+        }
+        HeadlessSolver.SOLVE_OPTIMALLY = Boolean.parseBoolean(System.getProperty("n_puzzle.optimal", "true"));
+
+        CorpusRunner runner = new CorpusRunner(
+                Double.parseDouble(System.getProperty("n_puzzle.threshold", "0.1")),
+                Double.parseDouble(System.getProperty("n_puzzle.time_threshold", "0.5")),
+                Integer.getInteger("n_puzzle.runs", 3));
+
+        Corpus corpus = Corpus.read(new File(args[0]));
+        Map<String, Result> baseline = (args.length == 2) ? readResults(new File(args[1])) : null;
+        prepareTables(corpus);
+
+        PrintStream out = System.out;
+        out.println("# name, nodes checked, peak visited states, milliseconds, moves (-1 if unsolved)");
+        out.println("# optimal: " + HeadlessSolver.SOLVE_OPTIMALLY + ", optimal time limit: "
+                + OptimalSolutionStrategy.MAX_TIME_ALLOWED);
+        out.println(HEADER + " " + VERSION);
+
+        int regressed = 0;
+        List<Corpus.Instance> instances = corpus.getInstances();
+        for(Corpus.Instance instance : instances){
+            Result result = runner.solve(instance);
+            out.println(result);
+
+            Result previous = (baseline == null) ? null : baseline.get(instance.name);
+            String regressions = (result.invalid == null) ? "" : result.invalid;
+            if(previous != null) regressions += runner.compare(result, previous);
+
+            if(regressions.length() > 0){
+                System.err.println("Regression on " + instance.name + ":" + regressions);
+                regressed++;
+            }
+        }
+
+        String metricsFile = System.getProperty("n_puzzle.metrics");
+        if(metricsFile != null){
+            PrintStream metrics = new PrintStream(new File(metricsFile), "UTF-8");
+            try{
+                metrics.println(SolverMetrics.getMetrics().toJSON());
+            }
+            finally{
+                metrics.close();
+            }
+        }
+
+        if(baseline != null || regressed > 0){
+            System.err.println(String.format("%s of %s boards regressed", regressed, instances.size()));
+        }
+        if(regressed > 0) System.exit(1);
+    }
+}
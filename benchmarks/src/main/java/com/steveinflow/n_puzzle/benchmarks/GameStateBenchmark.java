@@ -0,0 +1,90 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
+
+/**
+ * The GameState calls every search makes for each node: making a move, finding
+ * the legal moves, and hashing and comparing states for the visited set.
+ *
+ * Each call takes the next board in the corpus, so the results aren't for one
+ * lucky board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+    @Param({ "3", "4", "5" })
+    public int numDivisions;
+
+    private GameState[] mBoards;
+    /**An equal copy of each board, so equals() has to compare the tiles*/
+    private GameState[] mCopies;
+    /**A legal move from each board*/
+    private GameState.Direction[] mMoves;
+    private int mNext = 0;
+
+    @Setup
+    public void setUp(){
+        mBoards = Boards.corpus(numDivisions);
+        mCopies = new GameState[mBoards.length];
+        mMoves = new GameState.Direction[mBoards.length];
+
+        for(int i = 0; i < mBoards.length; i++){
+            mCopies[i] = new GameState(mBoards[i]);
+            mMoves[i] = MoveTable.getMove(mBoards[i].getLegalMoveFlags(0L), 0);
+        }
+    }
+
+    private int nextIndex(){
+        int index = mNext;
+        mNext = (index + 1 == mBoards.length) ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public GameState makeMove(){
+        int index = nextIndex();
+        return mBoards[index].makeMove(mMoves[index]);
+    }
+
+    @Benchmark
+    public ArrayList<GameState.Direction> getLegalMoves(){
+        return mBoards[nextIndex()].getLegalMoves(0L);
+    }
+
+    @Benchmark
+    public int getLegalMoveFlags(){
+        return mBoards[nextIndex()].getLegalMoveFlags(0L);
+    }
+
+    @Benchmark
+    public int hashCodeOfState(){
+        return mBoards[nextIndex()].hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsCopy(){
+        int index = nextIndex();
+        return mBoards[index].equals(mCopies[index]);
+    }
+}
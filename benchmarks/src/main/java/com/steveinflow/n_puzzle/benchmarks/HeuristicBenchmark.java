@@ -0,0 +1,107 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Node;
+import com.steveinflow.n_puzzle.Solver.SolutionStrategy;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.LinearConflictHeuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseHeuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.WalkingDistanceHeuristic;
+
+/**
+ * The Heuristic calls the solvers make for each node: estimating a state, ordering
+ * two nodes, and checking whether a node solves the goal.
+ *
+ * TILE_GOAL is the first goal the tile by tile SolutionStrategy sets for each
+ * board. The whole board heuristics only run on the board sizes they have tables
+ * for, so the other sizes aren't in the defaults. 5 x 5 boards can be run with
+ * -p numDivisions=5 -p heuristic=LINEAR_CONFLICT,TILE_GOAL.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+
+    public enum Kind { LINEAR_CONFLICT, WALKING_DISTANCE, PATTERN_DATABASE, TILE_GOAL; }
+
+    @Param({ "3", "4" })
+    public int numDivisions;
+
+    @Param
+    public Kind heuristic;
+
+    /**One heuristic for each board, since tile goals depend on the board*/
+    private Heuristic[] mHeuristics;
+    private Node[] mNodes;
+    private int mNext = 0;
+
+    @Setup
+    public void setUp(){
+        GameState[] boards = Boards.corpus(numDivisions);
+        mHeuristics = new Heuristic[boards.length];
+        mNodes = new Node[boards.length];
+
+        for(int i = 0; i < boards.length; i++){
+            mHeuristics[i] = makeHeuristic(boards[i]);
+            mHeuristics[i].prepare();
+
+            mNodes[i] = new Node(boards[i]);
+            mNodes[i].setEstimate(mHeuristics[i].estimate(boards[i]));
+        }
+    }
+
+    private Heuristic makeHeuristic(GameState board){
+        switch(heuristic){
+            case WALKING_DISTANCE:
+                return new WalkingDistanceHeuristic(numDivisions);
+            case PATTERN_DATABASE:
+                return new PatternDatabaseHeuristic(numDivisions);
+            case TILE_GOAL:
+                return new SolutionStrategy(board, numDivisions).getNextGoal(board);
+            default:
+                return new LinearConflictHeuristic();
+        }
+    }
+
+    private int nextIndex(){
+        int index = mNext;
+        mNext = (index + 1 == mNodes.length) ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public int estimate(){
+        int index = nextIndex();
+        return mHeuristics[index].estimate(mNodes[index].getEndState());
+    }
+
+    @Benchmark
+    public int compare(){
+        int index = nextIndex();
+        int other = (index + 1 == mNodes.length) ? 0 : index + 1;
+        return mHeuristics[index].compare(mNodes[index], mNodes[other]);
+    }
+
+    @Benchmark
+    public boolean checkIfSolved(){
+        int index = nextIndex();
+        return mHeuristics[index].checkIfSolved(mNodes[index]);
+    }
+}
@@ -0,0 +1,79 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Node;
+import com.steveinflow.n_puzzle.Solver.SolutionStrategy;
+import com.steveinflow.n_puzzle.Solver.Solver;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+
+/**
+ * One goal solved from start to finish by each search, with no time limit. The
+ * goal is the first one the tile by tile SolutionStrategy sets for each board,
+ * which is the kind of goal the solver spends most of its time on. Solving whole
+ * boards is measured by StrategyBenchmark.
+ *
+ * BIDIRECTIONAL isn't here, since tile goals have no single goal state to search
+ * back from. It races the other searches on whole boards (see
+ * OptimalSolutionStrategy.getPortfolio()).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({ "3", "4", "5" })
+    public int numDivisions;
+
+    @Param({ "A_STAR", "IDA_STAR", "ANYTIME_A_STAR", "PARALLEL_A_STAR" })
+    public Solver.Algorithm algorithm;
+
+    private GameState[] mBoards;
+    private Heuristic[] mGoals;
+    private FrozenCells[] mFrozenTiles;
+    private int mNext = 0;
+
+    @Setup
+    public void setUp(){
+        mBoards = Boards.corpus(numDivisions);
+        mGoals = new Heuristic[mBoards.length];
+        mFrozenTiles = new FrozenCells[mBoards.length];
+
+        for(int i = 0; i < mBoards.length; i++){
+            SolutionStrategy strategy = new SolutionStrategy(mBoards[i], numDivisions);
+            mGoals[i] = strategy.getNextGoal(mBoards[i]);
+            mGoals[i].prepare();
+            mFrozenTiles[i] = strategy.getFrozenTiles();
+        }
+    }
+
+    @Benchmark
+    public Node solveGoal(){
+        int index = mNext;
+        mNext = (index + 1 == mBoards.length) ? 0 : index + 1;
+
+        Node result = Solver.create(algorithm, Unmonitored.INSTANCE, mGoals[index],
+                mBoards[index], mFrozenTiles[index]).solveGoal();
+        if(result == null){
+            throw new IllegalStateException(algorithm + " failed on " + mBoards[index].toCSV());
+        }
+        return result;
+    }
+}
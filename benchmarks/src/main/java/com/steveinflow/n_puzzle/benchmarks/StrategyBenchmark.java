@@ -0,0 +1,74 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.HeadlessSolver;
+import com.steveinflow.n_puzzle.Solver.MacroCache;
+import com.steveinflow.n_puzzle.Solver.MoveQueue;
+
+/**
+ * Whole boards solved the way the game solves them: the SolutionStrategy loop in
+ * HeadlessSolver, with each goal's time limit, precomputed solutions and line end
+ * maneuvers. Each call solves the next board in the corpus.
+ *
+ * With optimal set, boards that have pattern databases are solved in the fewest
+ * moves (OptimalSolutionStrategy). 5 x 5 boards don't, so they're solved tile by
+ * tile either way.
+ *
+ * The MacroCache is cleared before each call, so stored solutions from earlier
+ * calls don't make later ones faster than a first game would be.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StrategyBenchmark {
+
+    @Param({ "3", "4", "5" })
+    public int numDivisions;
+
+    @Param({ "false", "true" })
+    public boolean optimal;
+
+    private GameState[] mBoards;
+    private int mNext = 0;
+
+    @Setup
+    public void setUp(){
+        HeadlessSolver.SOLVE_OPTIMALLY = optimal;
+        mBoards = Boards.corpus(numDivisions);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache(){
+        MacroCache.getCache().clear();
+    }
+
+    @Benchmark
+    public MoveQueue solve(){
+        int index = mNext;
+        mNext = (index + 1 == mBoards.length) ? 0 : index + 1;
+
+        MoveQueue moves = new HeadlessSolver(numDivisions).solve(mBoards[index]);
+        if(moves == null){
+            throw new IllegalStateException("No solution for " + mBoards[index].toCSV());
+        }
+        return moves;
+    }
+}
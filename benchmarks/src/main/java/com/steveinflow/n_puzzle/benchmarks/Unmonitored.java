@@ -0,0 +1,34 @@
+package com.steveinflow.n_puzzle.benchmarks;
+
+import com.steveinflow.n_puzzle.Solver.Node;
+import com.steveinflow.n_puzzle.Solver.SearchMonitor;
+
+/**
+ * A SearchMonitor that never cancels or times out a search, so a benchmark measures
+ * the search and nothing else.
+ */
+public class Unmonitored implements SearchMonitor {
+
+    public static final Unmonitored INSTANCE = new Unmonitored();
+
+    private Unmonitored(){
+    }
+
+    @Override
+    public boolean isCancelled(){
+        return false;
+    }
+
+    @Override
+    public void getUpdate(long nodesChecked){
+    }
+
+    @Override
+    public void publishSolution(Node solution){
+    }
+
+    @Override
+    public boolean isOutOfTime(){
+        return false;
+    }
+}
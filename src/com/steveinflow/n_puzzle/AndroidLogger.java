@@ -0,0 +1,14 @@
+package com.steveinflow.n_puzzle;
+
+import android.util.Log;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+
+/**Sends the solver's log messages to logcat*/
+public class AndroidLogger implements CoreLog.Logger {
+
+    @Override
+    public void d(String tag, String message){
+        Log.d(tag, message);
+    }
+}
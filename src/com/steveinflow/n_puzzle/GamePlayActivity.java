@@ -1,15 +1,16 @@
 package com.steveinflow.n_puzzle;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 
 import android.app.AlertDialog;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.Point;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.CountDownTimer;
@@ -25,21 +26,39 @@ import com.actionbarsherlock.app.SherlockActivity;
 import com.actionbarsherlock.view.Menu;
 import com.actionbarsherlock.view.MenuItem;
 import com.steveinflow.n_puzzle.DifficultyManager.DifficultyManagerCaller;
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
 import com.steveinflow.n_puzzle.GameState.GameState;
 import com.steveinflow.n_puzzle.GameState.ShuffleTask;
 import com.steveinflow.n_puzzle.Image_Manipulation.GameGrid;
 import com.steveinflow.n_puzzle.Solver.MoveMaker;
 import com.steveinflow.n_puzzle.Solver.MoveQueue;
 import com.steveinflow.n_puzzle.Solver.Node;
+import com.steveinflow.n_puzzle.Solver.OptimalSolutionStrategy;
+import com.steveinflow.n_puzzle.Solver.PortfolioEntry;
+import com.steveinflow.n_puzzle.Solver.PortfolioSolver;
 import com.steveinflow.n_puzzle.Solver.SolutionStrategy;
 import com.steveinflow.n_puzzle.Solver.SolveGameTask;
+import com.steveinflow.n_puzzle.Solver.SolverMetrics;
 import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseHeuristic;
 
 public class GamePlayActivity extends SherlockActivity implements DifficultyManagerCaller {
 	public static final String TAG = GamePlayActivity.class.getSimpleName();
 	
 	/**Application-wide flag for more intense logging.*/
 	public static boolean DEBUG_VERBOSE = false;
+
+	/**Solve boards small enough to have pattern databases in the fewest moves,
+	 * rather than one tile at a time.*/
+	public static boolean SOLVE_OPTIMALLY = true;
+	/**The assets directory holding the prebuilt pattern databases*/
+	private static final String TABLE_ASSETS = "pattern_databases";
+
+	/**When the strategy races several solvers on a goal, take the first solution,
+	 * or wait up to PORTFOLIO_DEADLINE milliseconds for the shortest one.*/
+	public static PortfolioSolver.Mode PORTFOLIO_MODE = PortfolioSolver.Mode.FIRST;
+	public static long PORTFOLIO_DEADLINE = 1000;
 	
 	/**If this var isn't the empty string, the game will start with the given gamestate.
 	 * For debugging purposes only so be careful: it will crash the app if it's an invalid csv or 
@@ -60,6 +79,7 @@ public class GamePlayActivity extends SherlockActivity implements DifficultyMana
     /**Solving members*/
     private MoveMaker mMoveMaker;
     private SolveGameTask mSolveTask;
+    private PortfolioSolver mPortfolio;
     private SolutionStrategy mSolutionStrategy;
     private MoveQueue mMoveQueue;
 
@@ -87,6 +107,24 @@ public class GamePlayActivity extends SherlockActivity implements DifficultyMana
         getSupportActionBar().setTitle("");
 
 		super.onCreate(savedInstanceState);
+
+		//the solver logs through CoreLog, which doesn't know about Android.
+		//a release build leaves it silent, so the solver doesn't build messages
+		boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+		CoreLog.setLogger((debuggable || DEBUG_VERBOSE) ? new AndroidLogger() : null);
+		CoreLog.DEBUG_VERBOSE = DEBUG_VERBOSE;
+
+		//pattern databases are mapped from here, copied here from the assets
+		//the first time they're needed, or written here once built
+		PatternDatabaseHeuristic.setTableDirectory(getFilesDir());
+		PatternDatabaseHeuristic.setWriteTables(true);
+		PatternDatabaseHeuristic.setTableSource(new PatternDatabaseHeuristic.TableSource(){
+			@Override
+			public InputStream open(String fileName) throws IOException {
+				return getAssets().open(TABLE_ASSETS + "/" + fileName);
+			}
+		});
+
 		startPreview();			
 	}
 
@@ -298,13 +336,22 @@ public class GamePlayActivity extends SherlockActivity implements DifficultyMana
             mSolveTask.cancel(true);
             mSolveTask = null;
         }
+        if(mPortfolio != null){
+            mPortfolio.cancel();
+            mPortfolio = null;
+        }
 
         if(mMoveQueue == null){
             mMoveQueue = new MoveQueue();
         }
 
         mMoveQueue.clear();
-        mSolutionStrategy = new SolutionStrategy(mState, mDifficulty);
+        if(SOLVE_OPTIMALLY && OptimalSolutionStrategy.supports(mDifficulty.getNumDivisions())){
+            mSolutionStrategy = new OptimalSolutionStrategy(mState, mDifficulty.getNumDivisions());
+        }
+        else{
+            mSolutionStrategy = new SolutionStrategy(mState, mDifficulty.getNumDivisions());
+        }
 
         solveNextTask(mState);
     }
@@ -312,14 +359,36 @@ public class GamePlayActivity extends SherlockActivity implements DifficultyMana
     public void solveNextTask(GameState gameState){
 
         Heuristic heuristic = mSolutionStrategy.getNextGoal(gameState);
-        ArrayList<Point> frozenTiles = mSolutionStrategy.getFrozenTiles();
+        FrozenCells frozenTiles = mSolutionStrategy.getFrozenTiles();
 
         //solver finished
         if(heuristic == null){
         	Log.d(TAG, "Solver finished: it took " + (System.currentTimeMillis() - startSolvingTime) + " milliseconds");
+        	Log.d(TAG, "Solver metrics: " + SolverMetrics.getMetrics().toJSON());
         }
         else{
-	        mSolveTask = new SolveGameTask(this, heuristic, frozenTiles, gameState);
+	        //some goals have a known solution, so there's nothing to search for
+	        MoveQueue precomputed = mSolutionStrategy.getPrecomputedSolution(gameState);
+	        if(precomputed != null){
+	        	Log.d(TAG, "Using a precomputed solution of " + precomputed.size() + " moves");
+	        	processSolvedGoal(new Node(gameState, precomputed,
+	        			precomputed.getStateAfterMoves(gameState)));
+	        	return;
+	        }
+
+	        //race several solvers if the strategy can't tell which will be fastest
+	        PortfolioEntry[] portfolio = mSolutionStrategy.getPortfolio(heuristic);
+	        if(portfolio != null){
+	        	mPortfolio = new PortfolioSolver(this, portfolio, frozenTiles, gameState);
+	        	mPortfolio.setTimeLimit(mSolutionStrategy.getTimeLimit());
+	        	mPortfolio.setMode(PORTFOLIO_MODE, PORTFOLIO_DEADLINE);
+	        	mPortfolio.start();
+	        	return;
+	        }
+
+	        mSolveTask = new SolveGameTask(this, heuristic, frozenTiles, gameState,
+	                mSolutionStrategy.getAlgorithm());
+	        mSolveTask.setTimeLimit(mSolutionStrategy.getTimeLimit());
 	        mSolveTask.execute();
         }
     }
@@ -328,6 +397,19 @@ public class GamePlayActivity extends SherlockActivity implements DifficultyMana
     /**If the solver fails for some reason, we add a random move and try again. */
     public void solverFailed(){
     	Log.d(TAG, "Solver failed.");
+
+    	//the fewest moves can take too long to find, so solve it a tile at a time instead
+    	if(mSolutionStrategy instanceof OptimalSolutionStrategy){
+    		runOnUiThread(new Runnable(){
+    			@Override
+    			public void run(){
+    				Log.d(TAG, "No optimal solution in time, solving tile by tile");
+    				mSolutionStrategy = new SolutionStrategy(mState, mDifficulty.getNumDivisions());
+    				solveNextTask(mState);
+    			}
+    		});
+    		return;
+    	}
     	//TODO
     }
 
@@ -341,6 +423,7 @@ public class GamePlayActivity extends SherlockActivity implements DifficultyMana
 
         Log.d(TAG, "Solver finished. adding moves to MoveQueue");
 
+        mSolutionStrategy.cacheSolution(result);
         mSolutionStrategy.processSolvedGoal(result.getEndState());
 
         mMoveQueue.addAll(result.getMoveQueue());
@@ -561,6 +644,10 @@ public class GamePlayActivity extends SherlockActivity implements DifficultyMana
             mSolveTask.cancel(true);
             mSolveTask = null;
         }
+        if(mPortfolio != null){
+            mPortfolio.cancel();
+            mPortfolio = null;
+        }
         
         if(mMoveMaker != null){
         	stopMoveMaker();
@@ -0,0 +1,36 @@
+package com.steveinflow.n_puzzle.GameState;
+
+/**A location on the board: x is the column and y is the row.
+ * Used in place of android.graphics.Point so the solver doesn't need Android.
+ */
+public class Coordinate {
+    public int x;
+    public int y;
+
+    public Coordinate(){
+    }
+
+    public Coordinate(int x, int y){
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this == o) return true;
+        if(!(o instanceof Coordinate)) return false;
+
+        Coordinate other = (Coordinate) o;
+        return x == other.x && y == other.y;
+    }
+
+    @Override
+    public int hashCode(){
+        return 31 * x + y;
+    }
+
+    @Override
+    public String toString(){
+        return "Coordinate(" + x + ", " + y + ")";
+    }
+}
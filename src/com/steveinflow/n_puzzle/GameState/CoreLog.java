@@ -0,0 +1,59 @@
+package com.steveinflow.n_puzzle.GameState;
+
+/**Logging for the GameState and Solver packages, which don't depend on Android.
+ * Messages go to whichever Logger is set: nothing by default, android.util.Log
+ * in the app (see AndroidLogger), or standard out when running on a JVM.
+ *
+ * There are two levels. Debug messages, about once per goal, are logged whenever
+ * a logger is set. Verbose messages, about every node, only when DEBUG_VERBOSE is
+ * set as well. Building a message costs more than the search work around it, so a message
+ * that needs formatting or a board printed is built inside a check of its level:
+ *
+ *     if(CoreLog.isLoggable()) CoreLog.d(TAG, "csv: " + state.toCSV());
+ *     if(CoreLog.DEBUG_VERBOSE) CoreLog.d(TAG, "checking " + state.toCSV());
+ *
+ * With no logger set, that leaves one flag check.
+ */
+public class CoreLog {
+
+    /**Where log messages go*/
+    public interface Logger {
+        public void d(String tag, String message);
+    }
+
+    /**Drops every message*/
+    public static final Logger SILENT = new Logger(){
+        @Override
+        public void d(String tag, String message){
+        }
+    };
+
+    /**Prints every message, for running off the device*/
+    public static final Logger STANDARD_OUT = new Logger(){
+        @Override
+        public void d(String tag, String message){
+            System.out.println(tag + ": " + message);
+        }
+    };
+
+    /**Flag for more intense logging in the solver, the verbose level*/
+    public static boolean DEBUG_VERBOSE = false;
+
+    private static volatile Logger sLogger = SILENT;
+    /**Set when a logger other than SILENT is*/
+    private static volatile boolean sLoggable = false;
+
+    public static void setLogger(Logger logger){
+        sLogger = (logger == null) ? SILENT : logger;
+        sLoggable = sLogger != SILENT;
+    }
+
+    /**@return true if debug messages go anywhere, so they're worth building*/
+    public static boolean isLoggable(){
+        return sLoggable;
+    }
+
+    public static void d(String tag, String message){
+        sLogger.d(tag, message);
+    }
+}
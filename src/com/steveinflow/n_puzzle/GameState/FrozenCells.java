@@ -0,0 +1,79 @@
+package com.steveinflow.n_puzzle.GameState;
+
+/**The set of grid cells whose tiles should not be moved.
+ *
+ * Cells are numbered row * numDivisions + col, and each cell is one bit of a long,
+ * so checking whether a cell is frozen is a single mask test. This covers boards
+ * up to 8 x 8.
+ */
+public class FrozenCells {
+    public static final int MAX_DIVISIONS = 8;
+
+    private final int numDivisions;
+    private long mMask;
+
+    public FrozenCells(int numDivisions){
+        if(numDivisions > MAX_DIVISIONS){
+            throw new IllegalArgumentException(String.format(
+                    "FrozenCells supports up to %s divisions, got %s", MAX_DIVISIONS, numDivisions));
+        }
+        this.numDivisions = numDivisions;
+    }
+
+    /**@param location the cell to freeze, row in y and column in x*/
+    public void freeze(Coordinate location){
+        freeze(location.y * numDivisions + location.x);
+    }
+
+    public void freeze(int cell){
+        mMask |= 1L << cell;
+    }
+
+    /**@param location the cell to unfreeze, row in y and column in x*/
+    public void unfreeze(Coordinate location){
+        unfreeze(location.y * numDivisions + location.x);
+    }
+
+    public void unfreeze(int cell){
+        mMask &= ~(1L << cell);
+    }
+
+    public boolean contains(Coordinate location){
+        return isFrozen(location.y * numDivisions + location.x);
+    }
+
+    public boolean isFrozen(int cell){
+        return isFrozen(mMask, cell);
+    }
+
+    /**@return true if the cell's bit is set in the mask*/
+    public static boolean isFrozen(long mask, int cell){
+        return (mask & (1L << cell)) != 0;
+    }
+
+    /**@return one bit per cell, set if that cell is frozen. This is a copy,
+     * so a caller can keep it while the frozen cells keep changing.*/
+    public long getMask(){
+        return mMask;
+    }
+
+    public int size(){
+        return Long.bitCount(mMask);
+    }
+
+    /**Lists the frozen cells as (R, C) pairs*/
+    @Override
+    public String toString(){
+        StringBuilder builder = new StringBuilder();
+        for(int cell = 0; cell < numDivisions * numDivisions; cell++){
+            if(isFrozen(cell)){
+                builder.append('(');
+                builder.append(cell / numDivisions);
+                builder.append(", ");
+                builder.append(cell % numDivisions);
+                builder.append(");");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -2,17 +2,27 @@ package com.steveinflow.n_puzzle.GameState;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-
-import android.graphics.Point;
-import android.util.Log;
+import java.util.Random;
 
 /**The GameState captures the placements of the tiles.
  *
- * It keeps a 2d array of integers which represent slices of an image.
+ * Each cell of the grid holds an int which represents a slice of the image.
  * The ints are the order, starting from the top left and going across/down,
  * of the slices of the image before shuffling.
  * The blank tile is represented as -1.
  *
+ * The solver creates millions of these, so the grid is stored packed rather
+ * than as an int[][]. Cells are numbered row * numDivisions + col. Boards up to
+ * 4 x 4 keep one nibble per cell in a single long; larger boards keep one byte
+ * per cell. Internally the blank is stored as numTiles - 1 (the index that the
+ * unshuffled image leaves out), and is translated back to -1 at the public methods.
+ *
+ * Alongside the cells the state keeps the inverse: the cell each tile is in,
+ * packed the same way. That makes finding a tile or the blank tile O(1).
+ *
+ * The hash code is a Zobrist hash (see ZobristTable) which is carried along and
+ * updated as tiles are placed, so hashing a state is just reading a field.
+ *
  * The correct placement for a 4 x 4 image is as follows:
  *
  *         0    1   2   3
@@ -25,19 +35,52 @@ import android.util.Log;
 public class GameState {
     public final static String TAG = "GameState";
 
+    /**shuffle() makes between this many random moves*/
+    private static final int MIN_SHUFFLES = 50;
+    /**and this many*/
+    private static final int MAX_SHUFFLES = 200;
+
+    /**Boards up to this size are packed into a single long, 4 bits per cell*/
+    public static final int MAX_PACKED_DIVISIONS = 4;
+    private static final int BITS_PER_CELL = 4;
+    private static final long CELL_MASK = 0xFL;
+
+    /**Boards up to this size have a packed key of two longs. See getPackedKeyLow()*/
+    public static final int MAX_KEY_DIVISIONS = 5;
+    private static final int KEY_BITS_PER_CELL = 5;
+    private static final int KEY_CELLS_PER_LONG = 64 / KEY_BITS_PER_CELL;
+
     protected int numDivisions;
-    protected int[][] mPlaces;
-    protected Point blankTile;
+    /**Tile in each cell, one nibble per cell. Used when numDivisions <= MAX_PACKED_DIVISIONS*/
+    protected long mPacked;
+    /**Tile in each cell, one byte per cell. Used for larger boards*/
+    protected byte[] mCells;
+    /**Cell of each tile, packed the same way as the tiles. The blank's cell is at blankCode()*/
+    protected long mPackedPositions;
+    protected byte[] mPositions;
+    /**Zobrist hash of the board, kept up to date by setTileAt*/
+    protected int mHash;
 
     public static enum Direction {
         UP, DOWN, LEFT, RIGHT;
     }
 
 
+    /**Create a gamestate with the tiles in their correct places and the blank tile
+     * in the bottom right corner.*/
     public GameState(int numDivisions){
         this.numDivisions = numDivisions;
-        this.mPlaces = new int[numDivisions][numDivisions];
-        this.blankTile = new Point(numDivisions - 1, numDivisions - 1);
+        if(!isPacked()){
+            this.mCells = new byte[numDivisions * numDivisions];
+            this.mPositions = new byte[numDivisions * numDivisions];
+        }
+
+        for(int cell = 0; cell < numDivisions * numDivisions; cell++){
+            setTileAt(cell, cell);
+        }
+
+        //the cells held 0s rather than real tiles until now, so hash from scratch
+        mHash = computeHash();
     }
 
     public int getNumDivisions(){
@@ -48,34 +91,130 @@ public class GameState {
         return numDivisions * numDivisions;
     }
 
+    /**The blank tile is wherever places holds -1*/
     public GameState(int[][] places){
-        this.numDivisions = places.length;
-        this.mPlaces = places;
-        this.blankTile = findBlankTile();
-    }
+        this(places.length);
 
-    public GameState(int[][] places, Point blankTile){
-        this.numDivisions = places.length;
-        this.mPlaces = places;
-        this.blankTile = blankTile;
+        for(int row = 0; row < numDivisions; row++){
+            for(int col = 0; col < numDivisions; col++){
+                setByLocation(row, col, places[row][col]);
+            }
+        }
     }
 
     /**Create a new GameState by cloning the other*/
     public GameState(GameState other){
-        this.numDivisions = other.mPlaces.length;
-        this.mPlaces = new int[numDivisions][numDivisions];
-        this.blankTile = new Point();
-        this.blankTile.y = other.blankTile.y; this.blankTile.x = other.blankTile.x;
+        this.numDivisions = other.numDivisions;
+        this.mPacked = other.mPacked;
+        this.mPackedPositions = other.mPackedPositions;
+        this.mHash = other.mHash;
+
+        if(other.mCells != null){
+            this.mCells = other.mCells.clone();
+            this.mPositions = other.mPositions.clone();
+        }
+    }
 
-        for(int row = 0; row < numDivisions; row++){
-            for(int col = 0; col < numDivisions; col++){
-                this.mPlaces[row][col] = other.mPlaces[row][col];
-            }
+    /**@return true if this board is small enough to be packed into a single long*/
+    public boolean isPacked(){
+        return numDivisions <= MAX_PACKED_DIVISIONS;
+    }
+
+    /**@return true if getPackedKeyLow() and getPackedKeyHigh() together identify this board*/
+    public boolean hasPackedKey(){
+        return numDivisions <= MAX_KEY_DIVISIONS;
+    }
+
+    /**The board as a pair of longs, for hash sets that store primitives rather
+     * than GameStates. Two boards of the same size are equal exactly when their
+     * keys are. Up to 4 x 4 the key is the packed board itself; a 5 x 5 board
+     * is repacked at 5 bits a cell, leaving out the last cell, which holds
+     * whichever tile the others don't. A key is never (0, 0).
+     *
+     * @return the low half of the key
+     */
+    public long getPackedKeyLow(){
+        if(mCells == null){
+            return mPacked;
         }
+        return packKeyCells(0);
+    }
+
+    /**@return the high half of the key, which is 0 for boards up to 4 x 4. See getPackedKeyLow()*/
+    public long getPackedKeyHigh(){
+        if(mCells == null){
+            return 0L;
+        }
+        return packKeyCells(KEY_CELLS_PER_LONG);
+    }
+
+    private long packKeyCells(int firstCell){
+        if(!hasPackedKey()){
+            throw new IllegalStateException("No packed key for a board with "
+                    + numDivisions + " divisions");
+        }
+
+        long key = 0L;
+        int lastCell = Math.min(firstCell + KEY_CELLS_PER_LONG, getNumTiles() - 1);
+        for(int cell = firstCell; cell < lastCell; cell++){
+            key |= (long)mCells[cell] << ((cell - firstCell) * KEY_BITS_PER_CELL);
+        }
+        return key;
+    }
+
+    /**The value the blank tile is stored as internally*/
+    private int blankCode(){
+        return numDivisions * numDivisions - 1;
+    }
+
+    /**@return the internal tile code in the given cell. The blank is blankCode().*/
+    protected int getTileAt(int cell){
+        if(mCells == null){
+            return (int)((mPacked >>> (cell * BITS_PER_CELL)) & CELL_MASK);
+        }
+        return mCells[cell];
+    }
+
+    /**@return the cell holding the given internal tile code*/
+    protected int getPositionOf(int code){
+        if(mPositions == null){
+            return (int)((mPackedPositions >>> (code * BITS_PER_CELL)) & CELL_MASK);
+        }
+        return mPositions[code];
+    }
+
+    /**Put the internal tile code in the given cell, and record the cell as that tile's position.
+     * The hash swaps out the key for the tile that was in the cell for the key of the new one.*/
+    protected void setTileAt(int cell, int code){
+        ZobristTable zobrist = ZobristTable.forDivisions(numDivisions);
+        int oldCode = getTileAt(cell);
+        if(oldCode != blankCode()) mHash ^= zobrist.getKey(oldCode, cell);
+        if(code != blankCode()) mHash ^= zobrist.getKey(code, cell);
+
+        if(mCells == null){
+            int shift = cell * BITS_PER_CELL;
+            mPacked = (mPacked & ~(CELL_MASK << shift)) | ((long)code << shift);
+
+            shift = code * BITS_PER_CELL;
+            mPackedPositions = (mPackedPositions & ~(CELL_MASK << shift)) | ((long)cell << shift);
+        }
+        else{
+            mCells[cell] = (byte)code;
+            mPositions[code] = (byte)cell;
+        }
+    }
+
+    /**Place a tile at the given location.
+     *
+     * @param value the tile index, or -1 for the blank tile
+     */
+    protected void setByLocation(int row, int col, int value){
+        int code = (value == -1) ? blankCode() : value;
+        setTileAt(row * numDivisions + col, code);
     }
     
-    /**For testing purposes- allows a gamestate to be created
-     * easily from a string of comma separated values.
+    /**Create a gamestate from a string of comma separated values, as
+     * written by toCSV(). Used for testing, and to read boards back from a corpus file.
      * 
      * The format is e.g.:
      * 14,13,12,11,10,9,8,7,6,5,4,3,2,1,0,-1
@@ -91,10 +230,14 @@ public class GameState {
      * @return a gamestate with the given layout
      */
     public static GameState fromCSV(String csv){
-    	int len = csv.length()/2;
-    	int numDiv = (int) Math.sqrt(len);
-    	
     	String[] values = csv.split(",");
+
+    	//values can be more than one digit, so count them rather than the characters
+    	int numDiv = (int) Math.round(Math.sqrt(values.length));
+    	if(numDiv * numDiv != values.length){
+    		throw new IllegalArgumentException(
+    				values.length + " values don't make a square board: " + csv);
+    	}
     	
     	GameState newState = new GameState(numDiv);
     	
@@ -103,7 +246,7 @@ public class GameState {
             for(int col = 0; col < newState.numDivisions; col++){
                 String value = values[index];
                 int intValue = Integer.parseInt(value);
-                newState.mPlaces[row][col] = intValue;
+                newState.setByLocation(row, col, intValue);
                 index++;
             }
         }
@@ -115,10 +258,10 @@ public class GameState {
      * @return a comma separated values representation of the gamestate's placements.
      */
     public String toCSV(){
-    	StringBuffer buffer = new StringBuffer();
+    	StringBuilder buffer = new StringBuilder(numDivisions * numDivisions * 3);
     	for(int row = 0; row < numDivisions; row++){
             for(int col = 0; col < numDivisions; col++){
-                buffer.append(this.mPlaces[row][col]);
+                buffer.append(getByLocation(row, col));
                 buffer.append(',');
             }
         }
@@ -143,7 +286,7 @@ public class GameState {
 
         for(int row = 0; row < numDivisions; row++){
             for(int col = 0; col < numDivisions; col++){
-                state.mPlaces[row][col] = index;
+                state.setByLocation(row, col, index);
                 index--;
             }
         }
@@ -152,32 +295,64 @@ public class GameState {
         *we need to swap the 1 and 2 tiles to ensure solvability.
          */
         if(numDivisions % 2  == 0){
-            int temp = state.mPlaces[numDivisions - 1][numDivisions - 2];
-            state.mPlaces[numDivisions - 1][numDivisions - 2] = state.mPlaces[numDivisions - 1][numDivisions - 3];
-            state.mPlaces[numDivisions - 1][numDivisions - 3] = temp;
+            int temp = state.getByLocation(numDivisions - 1, numDivisions - 2);
+            state.setByLocation(numDivisions - 1, numDivisions - 2,
+                    state.getByLocation(numDivisions - 1, numDivisions - 3));
+            state.setByLocation(numDivisions - 1, numDivisions - 3, temp);
         }
 
         return state;
     }
 
+    /**Make a random number of random legal moves from the given state.
+     *
+     * @param beginState the state to start from
+     * @param random where the moves come from. The same seed gives the same shuffle.
+     * @return the state after the moves
+     */
+    public static GameState shuffle(GameState beginState, Random random){
+        final int numShuffles = random.nextInt(MAX_SHUFFLES - MIN_SHUFFLES) + MIN_SHUFFLES;
+
+        GameState endState = beginState;
+
+        for(int i = 0; i < numShuffles; i++){
+            int moves = endState.getLegalMoveFlags(0L);
+            Direction move = MoveTable.getMove(moves, random.nextInt(MoveTable.countMoves(moves)));
+            endState = endState.makeMove(move);
+        }
+
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, String.format("Shuffled %s times, resulting state: \n%s", numShuffles,
+                    endState.toString()));
+        }
+
+        return endState;
+    }
+
     public int getByLocation(int row, int col){
-        return mPlaces[row][col];
+        return getByCell(row * numDivisions + col);
     }
 
-    public Point findActualLocation(int index){
-        Point result = new Point();
+    /**@param cell the cell number, row * numDivisions + col
+     * @return the tile index in that cell, or -1 for the blank tile*/
+    public int getByCell(int cell){
+        int code = getTileAt(cell);
+        return (code == blankCode()) ? -1 : code;
+    }
 
-        for(int row = 0; row < numDivisions; row++){
-            for(int col = 0; col < numDivisions; col++){
-                if(mPlaces[row][col] == index){
-                    result = new Point();
-                    result.y = row;
-                    result.x = col;
-                }
-            }
-        }
+    /**@return the cell number (row * numDivisions + col) of the blank tile*/
+    public int getBlankCell(){
+        return getPositionOf(blankCode());
+    }
+
+    /**@param index the tile index, or -1 for the blank tile
+     * @return the cell number (row * numDivisions + col) the tile is in*/
+    public int getCellOf(int index){
+        return getPositionOf((index == -1) ? blankCode() : index);
+    }
 
-        return result;
+    public Coordinate findActualLocation(int index){
+        return getLocation(index);
     }
 
 
@@ -190,28 +365,34 @@ public class GameState {
         else {
             return false;
         }
-        
-        try{
-	        for(int row = 0; row < numDivisions; row++){
-	            for(int col = 0; col < numDivisions; col++){
-	                if(mPlaces[row][col] != other.mPlaces[row][col]) return false;
-	            }
-	        }
-        }
-        catch(IndexOutOfBoundsException e){
-        	return false;
+
+        if(numDivisions != other.numDivisions) return false;
+
+        if(mCells == null){
+            return mPacked == other.mPacked;
         }
-        
-        return true;
-        //return this.toCSV().equals(other.toCSV());
+        return Arrays.equals(mCells, other.mCells);
     }
 
 
-    /**Use deep hash code on the 2d array- this creates a unique
-     * hashcode based on the contents of the array*/
+    /**The Zobrist hash is updated as moves are made, so there's nothing to compute*/
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(mPlaces);
+        return mHash;
+    }
+
+    /**XOR together the keys for every tile on the board*/
+    private int computeHash(){
+        ZobristTable zobrist = ZobristTable.forDivisions(numDivisions);
+        int hash = 0;
+
+        for(int cell = 0; cell < getNumTiles(); cell++){
+            int code = getTileAt(cell);
+            if(code != blankCode()){
+                hash ^= zobrist.getKey(code, cell);
+            }
+        }
+        return hash;
     }
 
 
@@ -224,54 +405,53 @@ public class GameState {
      * not be moved. Moves that involve the frozen tiles will not be returned in
      * the list of legal moves.
      *
-     * @param frozenTiles a list of tiles that should not be moved.
+     * @param frozenTiles the tiles that should not be moved, or null if any may move.
      * @return a list of moves that can legally be made from this gamestate.
      */
-    public ArrayList<Direction> getLegalMoves(ArrayList<Point> frozenTiles){
-        ArrayList<Direction> moves = new ArrayList<Direction>();
-        if(frozenTiles == null) frozenTiles = new ArrayList<Point>();
-
-        findBlankTile();
+    public ArrayList<Direction> getLegalMoves(FrozenCells frozenTiles){
+        return getLegalMoves(frozenTiles == null ? 0L : frozenTiles.getMask());
+    }
 
-        Point prospect = null;
+    /**Return an array list containing legal moves that can be made
+     * from this gamestate, skipping moves of the tiles in the frozen mask.
+     *
+     * @param frozenMask one bit per cell, as returned by FrozenCells.getMask()
+     * @return a list of moves that can legally be made from this gamestate.
+     */
+    public ArrayList<Direction> getLegalMoves(long frozenMask){
+        int flags = getLegalMoveFlags(frozenMask);
+        ArrayList<Direction> moves = new ArrayList<Direction>(MoveTable.countMoves(flags));
 
-        //check first that the blank tile isn't on the edge in each direction.
-        //Then check that the tile in the given direction isn't on the frozen list.
-        if(blankTile.x > 0){
-            prospect = getAdjacent(blankTile, Direction.LEFT);
-            if(!frozenTiles.contains(prospect)){
-                moves.add(Direction.LEFT);
-            }
-        }
-        if(blankTile.x < mPlaces.length - 1){
-            prospect = getAdjacent(blankTile, Direction.RIGHT);
-            if(!frozenTiles.contains(prospect)){
-                moves.add(Direction.RIGHT);
-            }
-        }
-        if(blankTile.y > 0){
-            prospect = getAdjacent(blankTile, Direction.UP);
-            if(!frozenTiles.contains(prospect)){
-                moves.add(Direction.UP);
-            }
-        }
-        if(blankTile.y < mPlaces.length - 1){
-            prospect = getAdjacent(blankTile, Direction.DOWN);
-            if(!frozenTiles.contains(prospect)){
-                moves.add(Direction.DOWN);
+        for(Direction move : MoveTable.MOVE_ORDER){
+            if(MoveTable.hasMove(flags, move)){
+                moves.add(move);
             }
         }
 
         return moves;
     }
 
+    /**The allocation free version of getLegalMoves, for the solver.
+     *
+     * @param frozenMask one bit per cell, as returned by FrozenCells.getMask()
+     * @return one bit per Direction ordinal for each legal move. See MoveTable.
+     */
+    public int getLegalMoveFlags(long frozenMask){
+        return getMoveTable().getMoveFlags(getBlankCell(), frozenMask);
+    }
+
+    /**@return the shared table of moves for this board size*/
+    public MoveTable getMoveTable(){
+        return MoveTable.forDivisions(numDivisions);
+    }
+
     /**Get the point adjacent to the given location in the given direction
      *
-     * @param targetLocation the Point representing the location of the target
+     * @param targetLocation the Coordinate representing the location of the target
      * @param direction the direction to move one space from the target
      * @return the point adjacent to the given target, in the given direction
      */
-    public static Point getAdjacent(Point targetLocation, Direction direction){
+    public static Coordinate getAdjacent(Coordinate targetLocation, Direction direction){
         int x = targetLocation.x;
         int y = targetLocation.y;
 
@@ -281,7 +461,7 @@ public class GameState {
             case DOWN: y++; break;
             case LEFT: x--; break;
         }
-        Point adjacent = new Point();
+        Coordinate adjacent = new Coordinate();
         adjacent.x = x; adjacent.y = y;
         return adjacent;
     }
@@ -292,8 +472,8 @@ public class GameState {
      * @param numDivisions the number of rows or columns in the grid
      * @return A point containing the row in y, column in x
      */
-    public static Point getCorrectLocationForIndex(int index, int numDivisions) {
-        Point destination = new Point();
+    public static Coordinate getCorrectLocationForIndex(int index, int numDivisions) {
+        Coordinate destination = new Coordinate();
 
         //A little math thinking involved
         destination.y = index / numDivisions;
@@ -308,103 +488,90 @@ public class GameState {
      * @return the gamestate that would result from making the specified move
      */
     public GameState makeMove(Direction move){
-        GameState newState = new GameState(this);
-
         //start with the blank tile
-        int xCoord = blankTile.x;
-        int yCoord = blankTile.y;
+        int blankCell = getBlankCell();
 
         //choose the tile 1 space from the blank tile in the given direction
-        switch(move){
-            case UP: yCoord--; break;
-            case DOWN: yCoord++; break;
-            case LEFT:xCoord--; break;
-            case RIGHT:xCoord++; break;
-        }
+        int targetCell = getMoveTable().getTarget(blankCell, move);
 
-        if(xCoord < 0 || xCoord >= numDivisions ||
-                yCoord < 0 || yCoord >=numDivisions){
-            Log.d(TAG, "Error: gameState trying " +
-                    "to make a move off the board: " + xCoord + " " + yCoord);
-            Log.d(TAG, "State is \n" + this.toString());
-            Log.d(TAG, "Move is " + move);
+        if(targetCell == MoveTable.NO_MOVE){
+            if(CoreLog.isLoggable()){
+                CoreLog.d(TAG, "Error: gameState trying to make move " + move
+                        + " off the board from cell " + blankCell + ". State is \n" + this);
+            }
             return null;
         }
 
         //swap the blank tile with the selected tile
-        int temp = newState.mPlaces[yCoord][xCoord];
-        newState.mPlaces[yCoord][xCoord] = -1;
-        newState.mPlaces[blankTile.y][blankTile.x] = temp;
-        newState.blankTile.x =   xCoord;
-        newState.blankTile.y = yCoord;
+        GameState newState = new GameState(this);
+        newState.setTileAt(blankCell, getTileAt(targetCell));
+        newState.setTileAt(targetCell, blankCode());
 
         return newState;
 
     }
 
-    /**Relocate the blank tile*/
-    public Point findBlankTile(){
-        for(int row = 0; row < mPlaces.length; row++){
-            for(int col = 0; col < mPlaces[0].length; col++){
-                if(mPlaces[row][col] == -1){
-                    Point p = new Point();
-                    p.y = row;
-                    p.x = col;
-                    blankTile = p;
-                    return p;
-                }
-            }
+    /**Make the move on this gamestate rather than on a copy. Searches that keep a
+     * single board make a move, look at the result, and then undo it by sliding the
+     * tile back with the opposite move (see MoveTable.getOpposite()).
+     *
+     * @param move the direction of the tile to slide into the blank space
+     * @return the cell the tile slid out of, which now holds the blank tile,
+     *      or MoveTable.NO_MOVE if the move is off the board
+     */
+    public int slide(Direction move){
+        int blankCell = getBlankCell();
+        int targetCell = getMoveTable().getTarget(blankCell, move);
+
+        if(targetCell != MoveTable.NO_MOVE){
+            setTileAt(blankCell, getTileAt(targetCell));
+            setTileAt(targetCell, blankCode());
         }
-        return null;
+        return targetCell;
+    }
+
+    /**Relocate the blank tile*/
+    public Coordinate findBlankTile(){
+        return getLocation(-1);
     }
 
-    public Point getBlankTile(){
-        findBlankTile();
-        return blankTile;
+    public Coordinate getBlankTile(){
+        return findBlankTile();
     }
 
 
     /**Return a point containing the row in y, col in x of
      * the given tile index.
      */
-    public Point getLocation(int index){
-        //the blank tile's location is already stored
-        if(index == -1){
-            return blankTile;
-        }
-
+    public Coordinate getLocation(int index){
         if(index < -1 || index > (numDivisions * numDivisions - 1)){
             throw new IllegalArgumentException(
                     String.format("getLocation called with bad index %s, numDivisions = %s",
                             + index, numDivisions));
         }
 
-        Point location = new Point();
-
-        //find the target
-        for(int row = 0; row < numDivisions; row++){
-            for(int col = 0; col < numDivisions; col++){
-                if(mPlaces[row][col] == index){
-                    location.x = col;
-                    location.y = row;
-                }
-            }
-        }
+        //every tile's location is already stored
+        int cell = getCellOf(index);
 
+        Coordinate location = new Coordinate();
+        location.x = cell % numDivisions;
+        location.y = cell / numDivisions;
         return location;
     }
 
     @Override
     public String toString(){
-        String s = " ";
-        for(int row = 0; row < mPlaces.length; row++){
-            for(int col = 0; col < mPlaces.length; col++){
-                s = s + " " + mPlaces[row][col];
+        //each tile takes up to 4 characters, and each row a newline
+        StringBuilder builder = new StringBuilder(1 + numDivisions * (numDivisions * 4 + 1));
+        builder.append(' ');
+        for(int row = 0; row < numDivisions; row++){
+            for(int col = 0; col < numDivisions; col++){
+                builder.append(' ').append(getByLocation(row, col));
             }
-            s+= '\n';
+            builder.append('\n');
         }
 
-        return s;
+        return builder.toString();
     }
 
 }
@@ -0,0 +1,114 @@
+package com.steveinflow.n_puzzle.GameState;
+
+/**Precomputed moves for one board size.
+ *
+ * Which moves are legal only depends on the cell the blank tile is in (and which
+ * cells are frozen), so for each cell the table holds the cell the blank tile would
+ * swap with in each direction, or NO_MOVE if that direction is off the board.
+ * Tables are built once per board size and shared by every GameState of that size.
+ *
+ * Sets of moves are passed around as flags, one bit per Direction ordinal.
+ */
+public class MoveTable {
+    public static final int NO_MOVE = -1;
+
+    /**The order moves are tried in, and listed in by GameState.getLegalMoves()*/
+    public static final GameState.Direction[] MOVE_ORDER = {
+            GameState.Direction.LEFT, GameState.Direction.RIGHT,
+            GameState.Direction.UP, GameState.Direction.DOWN };
+
+    private static final int NUM_DIRECTIONS = 4;
+    private static final MoveTable[] sTables = new MoveTable[FrozenCells.MAX_DIVISIONS + 1];
+
+    private final int numDivisions;
+    /**The cell the blank swaps with, indexed by cell * NUM_DIRECTIONS + direction ordinal*/
+    private final int[] mTargets;
+
+    /**Return the shared table for the given board size, building it the first time.
+     * Tables never change once built, so it doesn't matter if two threads race to build one.*/
+    public static MoveTable forDivisions(int numDivisions){
+        MoveTable table = sTables[numDivisions];
+        if(table == null){
+            table = new MoveTable(numDivisions);
+            sTables[numDivisions] = table;
+        }
+        return table;
+    }
+
+    private MoveTable(int numDivisions){
+        this.numDivisions = numDivisions;
+        int numCells = numDivisions * numDivisions;
+        mTargets = new int[numCells * NUM_DIRECTIONS];
+
+        for(int cell = 0; cell < numCells; cell++){
+            int row = cell / numDivisions;
+            int col = cell % numDivisions;
+
+            for(GameState.Direction direction : MOVE_ORDER){
+                int target = NO_MOVE;
+                switch(direction){
+                    case UP: if(row > 0) target = cell - numDivisions; break;
+                    case DOWN: if(row < numDivisions - 1) target = cell + numDivisions; break;
+                    case LEFT: if(col > 0) target = cell - 1; break;
+                    case RIGHT: if(col < numDivisions - 1) target = cell + 1; break;
+                }
+                mTargets[cell * NUM_DIRECTIONS + direction.ordinal()] = target;
+            }
+        }
+    }
+
+    public int getNumDivisions(){
+        return numDivisions;
+    }
+
+    /**@return the cell the blank tile swaps with when making the move, or NO_MOVE*/
+    public int getTarget(int blankCell, GameState.Direction move){
+        return mTargets[blankCell * NUM_DIRECTIONS + move.ordinal()];
+    }
+
+    /**@param blankCell the cell the blank tile is in
+     * @param frozenMask one bit per cell whose tile should not be moved
+     * @return one bit per Direction ordinal for each move that stays on the board
+     *      and doesn't move a frozen tile*/
+    public int getMoveFlags(int blankCell, long frozenMask){
+        int flags = 0;
+        int base = blankCell * NUM_DIRECTIONS;
+
+        for(int direction = 0; direction < NUM_DIRECTIONS; direction++){
+            int target = mTargets[base + direction];
+            if(target != NO_MOVE && !FrozenCells.isFrozen(frozenMask, target)){
+                flags |= 1 << direction;
+            }
+        }
+        return flags;
+    }
+
+    public static boolean hasMove(int flags, GameState.Direction move){
+        return (flags & (1 << move.ordinal())) != 0;
+    }
+
+    public static int countMoves(int flags){
+        return Integer.bitCount(flags);
+    }
+
+    /**@return the move that undoes the given move*/
+    public static GameState.Direction getOpposite(GameState.Direction move){
+        switch(move){
+            case UP: return GameState.Direction.DOWN;
+            case DOWN: return GameState.Direction.UP;
+            case LEFT: return GameState.Direction.RIGHT;
+            default: return GameState.Direction.LEFT;
+        }
+    }
+
+    /**@return the nth move in the flags, counting in MOVE_ORDER*/
+    public static GameState.Direction getMove(int flags, int n){
+        for(GameState.Direction move : MOVE_ORDER){
+            if(hasMove(flags, move)){
+                if(n == 0) return move;
+                n--;
+            }
+        }
+        return null;
+    }
+}
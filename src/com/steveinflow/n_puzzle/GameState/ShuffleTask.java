@@ -3,7 +3,6 @@ package com.steveinflow.n_puzzle.GameState;
 import android.os.AsyncTask;
 import android.util.Log;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 import com.steveinflow.n_puzzle.GamePlayActivity;
@@ -17,8 +16,6 @@ public class ShuffleTask extends AsyncTask<GameState, Integer, GameState>{
 
     private static final String TAG = ShuffleTask.class.getSimpleName();
 
-    private static final int MAX_SHUFFLES = 200;
-    private static final int MIN_SHUFFLES = 50;
     private static Random rand;
 
     private GamePlayActivity mContext;
@@ -30,22 +27,8 @@ public class ShuffleTask extends AsyncTask<GameState, Integer, GameState>{
     public static GameState shuffle(GameState beginState){
         if(rand == null) rand = new Random();
 
-        final int minShuffles = rand.nextInt(MAX_SHUFFLES - MIN_SHUFFLES) + MIN_SHUFFLES;
-
         Log.d(TAG, "Shuffling");
-
-        GameState endState = beginState;
-
-        for(int i = 0; i < minShuffles; i++){
-            ArrayList<GameState.Direction> moves = endState.getLegalMoves(null);
-            GameState.Direction move = moves.get(rand.nextInt(moves.size()));
-            endState = endState.makeMove(move);
-        }
-
-        Log.d(TAG, String.format("Shuffled %s times, resulting state: \n%s", minShuffles,
-                endState.toString()));
-
-        return endState;
+        return GameState.shuffle(beginState, rand);
     }
 
     @Override
@@ -0,0 +1,50 @@
+package com.steveinflow.n_puzzle.GameState;
+
+import java.util.Random;
+
+/**Random keys for Zobrist hashing of GameStates.
+ *
+ * A board's hash is the XOR of the key for each (tile, cell) pair on it. The blank
+ * tile has no keys: its cell is whichever one the other tiles leave free. A move
+ * takes one tile out of one cell and puts it in another, so a GameState can update
+ * its hash with two XORs instead of rehashing the whole board.
+ *
+ * Tables are built once per board size from a fixed seed, so hashes are the same
+ * from run to run.
+ */
+public class ZobristTable {
+    private static final long SEED = 0x5DEECE66DL;
+    private static final ZobristTable[] sTables = new ZobristTable[FrozenCells.MAX_DIVISIONS + 1];
+
+    private final int numCells;
+    /**Indexed by tile * numCells + cell*/
+    private final int[] mKeys;
+
+    /**Return the shared table for the given board size, building it the first time.
+     * Every build gives the same keys, so it doesn't matter if two threads race to build one.*/
+    public static ZobristTable forDivisions(int numDivisions){
+        ZobristTable table = sTables[numDivisions];
+        if(table == null){
+            table = new ZobristTable(numDivisions);
+            sTables[numDivisions] = table;
+        }
+        return table;
+    }
+
+    private ZobristTable(int numDivisions){
+        numCells = numDivisions * numDivisions;
+        mKeys = new int[numCells * numCells];
+
+        Random random = new Random(SEED + numDivisions);
+        for(int i = 0; i < mKeys.length; i++){
+            mKeys[i] = random.nextInt();
+        }
+    }
+
+    /**@param tile the tile index (not the blank)
+     * @param cell the cell number, row * numDivisions + col
+     * @return the key to XOR into a board's hash for that tile being in that cell*/
+    public int getKey(int tile, int cell){
+        return mKeys[tile * numCells + cell];
+    }
+}
@@ -0,0 +1,276 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.Comparator;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+
+/**
+ * Weighted A* run over and over with a falling weight, so there's a solution to
+ * hand back soon after starting and a shorter one the longer it runs.
+ *
+ * Each round orders nodes by moves made plus the estimate times the round's
+ * weight. A high weight heads straight for the goal and finds a long solution
+ * quickly. Every solution found is passed to SearchMonitor.publishSolution(),
+ * and from then on any node whose unweighted total is no better is dropped, so
+ * later rounds only look for shorter ones.
+ *
+ * The pattern database estimate never overestimates, but can drop by more than
+ * one move in a single move, so a state can be expanded before the shortest way
+ * to it is found. The visited states keep the fewest moves each was expanded
+ * with, and a state reached in fewer is expanded again. With that, a round that
+ * runs out of nodes has looked at everything that could lead to a shorter
+ * solution, whatever its weight, and the last round (weight 1, plain A*) finds the
+ * shortest one if nothing has yet.
+ *
+ * When the monitor runs out of time, the search stops and returns the best
+ * solution so far rather than failing.
+ */
+public class AnytimeSolver implements GoalSolver {
+    public static final String TAG = "AnytimeSolver";
+
+    /**The weight for each round, ending with plain A**/
+    private static final float[] WEIGHTS = { 5f, 3f, 2f, 1.5f, 1.25f, 1f };
+
+    private SearchMonitor mParent;
+    private Heuristic mHeuristic;
+    private GameState mBeginState;
+    private long mFrozenMask;
+    private long mNodesChecked = 0;
+    private final SearchMetrics mMetrics;
+    /**Where the search tree is written, if tracing is on (see SearchTrace).
+     * Each round expands the begin state again.*/
+    private SearchTrace mTrace;
+
+    private OpenList mPossibleSuccessors;
+    private VisitedStateSet mVisitedStates;
+
+    /**The shortest solution found so far*/
+    private Node mBestSolution;
+    private int mBestCost = Integer.MAX_VALUE;
+
+    private Solver.Status mStatus = Solver.Status.IDLE;
+
+    /**
+     * @param parentThread what runs this solver: checked for cancellation and given progress
+     * @param goal the heuristic that estimates the moves left,
+     * 		and will check gamestates to see if they solve the goal
+     * @param beginState the origin state to solve from
+     * @param frozenTiles the cells whose tiles should not be involved
+     * 	in any moves while solving this goal.
+     */
+    public AnytimeSolver(SearchMonitor parentThread, Heuristic goal, GameState beginState,
+            FrozenCells frozenTiles){
+        mParent = parentThread;
+        mHeuristic = goal;
+        mBeginState = beginState;
+        mFrozenMask = (frozenTiles == null) ? 0L : frozenTiles.getMask();
+        mMetrics = new SearchMetrics(goal, Solver.Algorithm.ANYTIME_A_STAR);
+
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, "Starting anytime solver for goal: " + mHeuristic.getDescription());
+            CoreLog.d(TAG, "csv: " + beginState.toCSV());
+        }
+    }
+
+    @Override
+    public Solver.Status getStatus(){
+        return mStatus;
+    }
+
+    /**Each round starts with empty visited states, so their peak is the most any round saw*/
+    @Override
+    public SearchMetrics getMetrics(){
+        return mMetrics;
+    }
+
+    /**Run a round for each weight until time runs out or no shorter solution is left.
+     * @return a node containing the shortest solution found, and the MoveQueue to get there.
+     */
+    @Override
+    public Node solveGoal(){
+        mStatus = Solver.Status.SOLVING;
+        mTrace = SearchTrace.open(mHeuristic, Solver.Algorithm.ANYTIME_A_STAR, mBeginState);
+
+        for(float weight : WEIGHTS){
+            if(CoreLog.isLoggable()){
+                CoreLog.d(TAG, String.format("Searching with weight %s. %s nodes checked so far.",
+                        weight, mNodesChecked));
+            }
+
+            boolean exhausted;
+            try{
+                exhausted = search(weight);
+            }
+            catch(OutOfMemoryError e){
+                CoreLog.d(TAG, "Ran out of internal memory while solving");
+                exhausted = false;
+                mStatus = Solver.Status.FAILED;
+            }
+            finally{
+                if(mVisitedStates != null){
+                    mMetrics.visitedStates(mVisitedStates.size());
+                }
+                mPossibleSuccessors = null;
+                mVisitedStates = null;
+            }
+
+            if(mStatus != Solver.Status.SOLVING || exhausted) break;
+        }
+        if(mTrace != null) mTrace.close();
+
+        if(mStatus == Solver.Status.CANCELLED){
+            return null;
+        }
+        if(mBestSolution == null){
+            CoreLog.d(TAG, "Solver terminating before solution found");
+            mStatus = Solver.Status.FAILED;
+            return null;
+        }
+
+        CoreLog.d(TAG, String.format("Returning a solution of %s moves after %s nodes",
+                mBestCost, mNodesChecked));
+        mStatus = Solver.Status.SOLVED;
+        return mBestSolution;
+    }
+
+    /**One round of weighted A*, which stops at the first solution it finds.
+     * @return true if the round ran out of nodes, so there's no shorter solution*/
+    private boolean search(float weight){
+        mVisitedStates = new VisitedStateSet(mBeginState, Solver.MAX_VISITED_STATE_BYTES, true);
+        mPossibleSuccessors = new PriorityOpenList(new WeightedComparator(weight));
+
+        Node originNode = new Node(mBeginState);
+        originNode.setEstimate(mHeuristic.estimate(mBeginState));
+        mMetrics.heuristicEvaluated();
+        mPossibleSuccessors.add(originNode);
+
+        while(true){
+            if(mParent.isCancelled()){
+                mStatus = Solver.Status.CANCELLED;
+                return false;
+            }
+
+            mParent.getUpdate(mNodesChecked);
+            if(mParent.isOutOfTime()){
+                CoreLog.d(TAG, "Out of time, stopping with the best solution so far");
+                return false;
+            }
+
+            Node node = mPossibleSuccessors.poll();
+            if(node == null) return true;
+            mNodesChecked++;
+
+            //only a shorter solution is any use
+            if(node.getTotalCost() >= mBestCost) continue;
+
+            //expanded before in as few moves or fewer
+            GameState endState = node.getEndState();
+            if(mVisitedStates.getCost(endState) <= node.getCost()){
+                mMetrics.duplicate();
+                continue;
+            }
+
+            if(mHeuristic.checkIfSolved(node)){
+                CoreLog.d(TAG, String.format("Weight %s found a solution of %s moves",
+                        weight, node.getCost()));
+                if(mTrace != null) mTrace.solved(node);
+                mBestSolution = node;
+                mBestCost = node.getCost();
+                mParent.publishSolution(node);
+                return false;
+            }
+
+            if(mVisitedStates.isFull()){
+                CoreLog.d(TAG, "Visited states reached the memory limit while solving: "
+                        + mVisitedStates.size());
+                return false;
+            }
+            mVisitedStates.add(endState, node.getCost());
+
+            addSuccessors(node);
+        }
+    }
+
+    /**Expand the node by adding its successors to the open list.
+     * @param node the node to expand
+     */
+    private void addSuccessors(Node node){
+        final GameState previousState = node.getEndState();
+        final int previousBlankCell = previousState.getBlankCell();
+        int legalMoves = previousState.getLegalMoveFlags(mFrozenMask);
+        mMetrics.nodeExpanded();
+        if(mTrace != null) traceSuccessors(node, legalMoves);
+
+        for(GameState.Direction nextMove : MoveTable.MOVE_ORDER){
+            if(!MoveTable.hasMove(legalMoves, nextMove)) continue;
+
+            GameState resultantState = previousState.makeMove(nextMove);
+            if(mVisitedStates.getCost(resultantState) <= node.getCost() + 1){
+                mMetrics.duplicate();
+                continue;
+            }
+
+            Node nextNode = new Node(node, nextMove, resultantState);
+            mMetrics.nodeGenerated();
+
+            //the tile that moved is now where the blank tile was
+            int movedTile = resultantState.getByCell(previousBlankCell);
+            nextNode.setEstimate(mHeuristic.estimateAfterMove(node.getEstimate(),
+                    resultantState, movedTile, resultantState.getBlankCell(), previousBlankCell));
+            mMetrics.heuristicEvaluated();
+
+            if(nextNode.getTotalCost() >= mBestCost) continue;
+            mPossibleSuccessors.add(nextNode);
+        }
+        mMetrics.openListSize(mPossibleSuccessors.size());
+    }
+
+    /**Write the node and what addSuccessors() will do with each of its successors
+     * to the trace, so an untraced search only checks for a trace once per node.
+     * No state's cost changes during an expansion, so the successors come out the
+     * same both times.
+     */
+    private void traceSuccessors(Node node, int legalMoves){
+        final GameState previousState = node.getEndState();
+        final int previousBlankCell = previousState.getBlankCell();
+        mTrace.expand(node);
+
+        for(GameState.Direction nextMove : MoveTable.MOVE_ORDER){
+            if(!MoveTable.hasMove(legalMoves, nextMove)) continue;
+
+            GameState resultantState = previousState.makeMove(nextMove);
+            if(mVisitedStates.getCost(resultantState) <= node.getCost() + 1){
+                mTrace.duplicate(nextMove);
+                continue;
+            }
+
+            int movedTile = resultantState.getByCell(previousBlankCell);
+            int estimate = mHeuristic.estimateAfterMove(node.getEstimate(),
+                    resultantState, movedTile, resultantState.getBlankCell(), previousBlankCell);
+            if(node.getCost() + 1 + estimate >= mBestCost) continue;
+            mTrace.child(nextMove, estimate);
+        }
+    }
+
+    /**Orders nodes by moves made plus weight times the estimate, then by estimate*/
+    private static class WeightedComparator implements Comparator<Node> {
+        private final float mWeight;
+
+        WeightedComparator(float weight){
+            mWeight = weight;
+        }
+
+        @Override
+        public int compare(Node node1, Node node2){
+            float priority1 = node1.getCost() + mWeight * node1.getEstimate();
+            float priority2 = node2.getCost() + mWeight * node2.getEstimate();
+            if(priority1 != priority2) return priority1 < priority2 ? -1 : 1;
+
+            return node1.getEstimate() - node2.getEstimate();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.HashMap;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.StateDistanceHeuristic;
+
+/**
+ * Bidirectional A* for goals that are solved by a single known state (see
+ * Heuristic.getGoalState()). Every move can be undone, so searching back from the
+ * goal state is the same as searching forward toward the begin state.
+ *
+ * Each side is an A* search toward the other side's starting state. The forward
+ * side estimates with the goal's own heuristic, and the backward side with the
+ * Manhattan distance and linear conflicts to the begin state (see
+ * StateDistanceHeuristic). Each round expands the best node of whichever side has
+ * the smaller open list. Whenever a side reaches a state the other side has seen,
+ * the two paths joined there make a solution, and the shortest one is kept.
+ *
+ * A shorter solution would have to pass through an open node on each side, and
+ * neither heuristic overestimates, so it can't be shorter than the lowest moves
+ * made plus estimate on either open list. Once the kept solution is no longer than
+ * the higher of those two, it's the shortest there is. Nodes that can't lead to
+ * anything shorter than the kept solution aren't expanded, and a state reached
+ * again in fewer moves is expanded again.
+ *
+ * Each side keeps the node that reached every state it has seen in the fewest
+ * moves, so both halves of the path can be walked back from the meeting state.
+ */
+public class BidirectionalSolver implements GoalSolver {
+    public static final String TAG = "BidirectionalSolver";
+
+    /**Roughly the memory this solver holds per seen state: the seen map's entry,
+     * the Node and its GameState, and the open lists, which hold the same nodes.
+     * Measured at about 129 bytes a state by the heap in use after a 4 x 4 search
+     * with the pattern databases had seen 3.5 million states. The seen states may
+     * take up Solver.MAX_VISITED_STATE_BYTES between them.*/
+    private static final long BYTES_PER_STATE = 128;
+
+    /**Check for cancellation and report progress every this many nodes*/
+    private static final int UPDATE_INTERVAL = 1024;
+
+    private SearchMonitor mParent;
+    private Heuristic mHeuristic;
+    private GameState mBeginState;
+    private long mFrozenMask;
+    private long mNodesChecked = 0;
+    private final SearchMetrics mMetrics;
+
+    private Solver.Status mStatus = Solver.Status.IDLE;
+
+    private Side mForward;
+    private Side mBackward;
+
+    /**The length of the shortest solution found so far, and the nodes on each side
+     * of the state where it meets*/
+    private int mBestCost = Integer.MAX_VALUE;
+    private Node mForwardMeeting;
+    private Node mBackwardMeeting;
+
+    /**
+     * @param parentThread what runs this solver: checked for cancellation and given progress
+     * @param goal the heuristic, which has to have a single goal state
+     * @param beginState the origin state to solve from
+     * @param frozenTiles the cells whose tiles should not be involved
+     * 	in any moves while solving this goal.
+     */
+    public BidirectionalSolver(SearchMonitor parentThread, Heuristic goal, GameState beginState,
+            FrozenCells frozenTiles){
+        mParent = parentThread;
+        mHeuristic = goal;
+        mBeginState = beginState;
+        mFrozenMask = (frozenTiles == null) ? 0L : frozenTiles.getMask();
+        mMetrics = new SearchMetrics(goal, Solver.Algorithm.BIDIRECTIONAL);
+
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, "Starting bidirectional solver for goal: " + mHeuristic.getDescription());
+            CoreLog.d(TAG, "csv: " + beginState.toCSV());
+        }
+    }
+
+    @Override
+    public Solver.Status getStatus(){
+        return mStatus;
+    }
+
+    /**The open list and the visited states are both sides' put together*/
+    @Override
+    public SearchMetrics getMetrics(){
+        return mMetrics;
+    }
+
+    /**Search from both ends until the shortest solution through a meeting state
+     * is known to be the shortest there is.
+     * @return a node containing the solution state, and the MoveQueue to get there.
+     */
+    @Override
+    public Node solveGoal(){
+        mStatus = Solver.Status.SOLVING;
+
+        GameState goalState = mHeuristic.getGoalState(mBeginState);
+        if(goalState == null || !mHeuristic.checkIfSolved(goalState)){
+            CoreLog.d(TAG, "The goal has no single goal state to search back from");
+            mStatus = Solver.Status.FAILED;
+            return null;
+        }
+
+        Node originNode = new Node(mBeginState);
+        originNode.setEstimate(mHeuristic.estimate(mBeginState));
+        mMetrics.heuristicEvaluated();
+        if(mHeuristic.checkIfSolved(originNode)){
+            mStatus = Solver.Status.SOLVED;
+            return originNode;
+        }
+
+        Heuristic backwardHeuristic = new StateDistanceHeuristic(mBeginState);
+        Node goalNode = new Node(goalState);
+        goalNode.setEstimate(backwardHeuristic.estimate(goalState));
+        mMetrics.heuristicEvaluated();
+
+        mForward = new Side(mHeuristic, originNode);
+        mBackward = new Side(backwardHeuristic, goalNode);
+        long maxStates = Solver.MAX_VISITED_STATE_BYTES / BYTES_PER_STATE;
+
+        try{
+            while(mStatus == Solver.Status.SOLVING){
+                if(++mNodesChecked % UPDATE_INTERVAL == 0){
+                    if(mParent.isCancelled()){
+                        mStatus = Solver.Status.CANCELLED;
+                        break;
+                    }
+                    mParent.getUpdate(mNodesChecked);
+                }
+
+                //an empty side has nothing shorter left either, so this ends the search too
+                int lowerBound = Math.max(mForward.open.getMinTotalCost(),
+                        mBackward.open.getMinTotalCost());
+                if(mBestCost <= lowerBound) break;
+
+                if(mForward.open.size() <= mBackward.open.size()){
+                    expand(mForward, mBackward);
+                }
+                else{
+                    expand(mBackward, mForward);
+                }
+
+                if(mForward.seen.size() + mBackward.seen.size() > maxStates){
+                    CoreLog.d(TAG, "Solver giving up after seeing " + maxStates + " states");
+                    mStatus = Solver.Status.FAILED;
+                }
+            }
+        }
+        catch(OutOfMemoryError e){
+            mForward = null;
+            mBackward = null;
+            CoreLog.d(TAG, "Ran out of internal memory while solving");
+            mStatus = Solver.Status.FAILED;
+        }
+
+        if(mForward != null){
+            mMetrics.visitedStates(mForward.seen.size() + mBackward.seen.size());
+        }
+        mForward = null;
+        mBackward = null;
+
+        if(mStatus != Solver.Status.SOLVING || mForwardMeeting == null){
+            if(mStatus == Solver.Status.SOLVING){
+                CoreLog.d(TAG, "Solver terminating before solution found, no successors left");
+                mStatus = Solver.Status.FAILED;
+            }
+            return null;
+        }
+
+        CoreLog.d(TAG, String.format("Solution found! %s moves after %s nodes",
+                mBestCost, mNodesChecked));
+        mStatus = Solver.Status.SOLVED;
+
+        return new Node(mBeginState, buildMoveQueue(), goalState);
+    }
+
+    /**Expand the best node on one side, noting any state the other side has seen*/
+    private void expand(Side side, Side otherSide){
+        Node node = side.open.poll();
+
+        //skip a node that was reached again in fewer moves, or can't beat the kept solution
+        GameState state = node.getEndState();
+        if(side.seen.get(state) != node || node.getTotalCost() >= mBestCost) return;
+
+        final int blankCell = state.getBlankCell();
+        int legalMoves = state.getLegalMoveFlags(mFrozenMask);
+        mMetrics.nodeExpanded();
+
+        for(GameState.Direction move : MoveTable.MOVE_ORDER){
+            if(!MoveTable.hasMove(legalMoves, move)) continue;
+
+            GameState next = state.makeMove(move);
+            Node seenNode = side.seen.get(next);
+            if(seenNode != null && seenNode.getCost() <= node.getCost() + 1){
+                mMetrics.duplicate();
+                continue;
+            }
+
+            Node nextNode = new Node(node, move, next);
+            mMetrics.nodeGenerated();
+
+            //the tile that moved is now where the blank tile was
+            int movedTile = next.getByCell(blankCell);
+            nextNode.setEstimate(side.heuristic.estimateAfterMove(node.getEstimate(),
+                    next, movedTile, next.getBlankCell(), blankCell));
+            mMetrics.heuristicEvaluated();
+
+            side.seen.put(next, nextNode);
+            if(nextNode.getTotalCost() < mBestCost){
+                side.open.add(nextNode);
+            }
+
+            Node otherNode = otherSide.seen.get(next);
+            if(otherNode != null && nextNode.getCost() + otherNode.getCost() < mBestCost){
+                mBestCost = nextNode.getCost() + otherNode.getCost();
+                mForwardMeeting = (side == mForward) ? nextNode : otherNode;
+                mBackwardMeeting = (side == mForward) ? otherNode : nextNode;
+            }
+        }
+        mMetrics.openListSize(mForward.open.size() + mBackward.open.size());
+    }
+
+    /**The forward side's moves to the meeting state, then the backward side's
+     * moves undone back to the goal state*/
+    private MoveQueue buildMoveQueue(){
+        MoveQueue moves = new MoveQueue();
+        moves.addAll(mForwardMeeting.getMoveQueue());
+
+        //the backward side's moves lead away from the goal, so undo them
+        for(Node node = mBackwardMeeting; node.getParent() != null; node = node.getParent()){
+            moves.add(MoveTable.getOpposite(node.getLastMove()));
+        }
+        return moves;
+    }
+
+    /**One direction of the search: its open list, and the node that reached each
+     * state it has seen in the fewest moves*/
+    private static class Side {
+        final Heuristic heuristic;
+        final BucketOpenList open = new BucketOpenList();
+        final HashMap<GameState, Node> seen = new HashMap<GameState, Node>();
+
+        Side(Heuristic heuristic, Node root){
+            this.heuristic = heuristic;
+            open.add(root);
+            seen.put(root.getEndState(), root);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.steveinflow.n_puzzle.Solver;
+
+/**An open list for nodes with small integer costs.
+ *
+ * Nodes go in a bucket for their total cost f (moves made + estimate) and, within
+ * that, for their estimate h. poll() takes from the lowest f, then the lowest h,
+ * the same order as Heuristic.compare(), and each bucket is a stack so the newest
+ * node comes out first. Adding and polling are O(1) apart from skipping over empty
+ * buckets, which only ever moves forward until a cheaper node is added.
+ */
+public class BucketOpenList implements OpenList {
+    private static final int INITIAL_BUCKETS = 64;
+    private static final int INITIAL_BUCKET_SIZE = 16;
+
+    /**Indexed by [f][h]. Rows and buckets are made when first needed.*/
+    private NodeStack[][] mBuckets = new NodeStack[INITIAL_BUCKETS][];
+    /**Number of nodes with each f*/
+    private int[] mCountByTotal = new int[INITIAL_BUCKETS];
+    /**For each f, no node has a lower h than this*/
+    private int[] mMinEstimateByTotal = new int[INITIAL_BUCKETS];
+
+    /**No node has a lower f than this*/
+    private int mMinTotal = Integer.MAX_VALUE;
+    private int mSize;
+
+    @Override
+    public void add(Node node){
+        int total = node.getTotalCost();
+        int estimate = node.getEstimate();
+
+        if(total < 0 || estimate < 0){
+            throw new IllegalArgumentException("BucketOpenList needs non-negative costs, got f = "
+                    + total + ", h = " + estimate);
+        }
+
+        ensureTotal(total);
+        NodeStack[] row = mBuckets[total];
+        if(row == null){
+            row = new NodeStack[Math.max(INITIAL_BUCKETS, estimate + 1)];
+            mBuckets[total] = row;
+        }
+        if(estimate >= row.length){
+            NodeStack[] bigger = new NodeStack[Math.max(row.length * 2, estimate + 1)];
+            System.arraycopy(row, 0, bigger, 0, row.length);
+            row = bigger;
+            mBuckets[total] = row;
+        }
+        if(row[estimate] == null){
+            row[estimate] = new NodeStack();
+        }
+
+        if(mCountByTotal[total] == 0 || estimate < mMinEstimateByTotal[total]){
+            mMinEstimateByTotal[total] = estimate;
+        }
+        if(total < mMinTotal) mMinTotal = total;
+
+        row[estimate].push(node);
+        mCountByTotal[total]++;
+        mSize++;
+    }
+
+    @Override
+    public Node poll(){
+        if(mSize == 0) return null;
+
+        while(mCountByTotal[mMinTotal] == 0){
+            mMinTotal++;
+        }
+
+        NodeStack[] row = mBuckets[mMinTotal];
+        int estimate = mMinEstimateByTotal[mMinTotal];
+        while(row[estimate] == null || row[estimate].isEmpty()){
+            estimate++;
+        }
+        mMinEstimateByTotal[mMinTotal] = estimate;
+
+        mCountByTotal[mMinTotal]--;
+        mSize--;
+        return row[estimate].pop();
+    }
+
+    @Override
+    public int size(){
+        return mSize;
+    }
+
+    /**@return the lowest total cost f of any node in the list,
+     *      or Integer.MAX_VALUE if the list is empty*/
+    public int getMinTotalCost(){
+        if(mSize == 0) return Integer.MAX_VALUE;
+
+        while(mCountByTotal[mMinTotal] == 0){
+            mMinTotal++;
+        }
+        return mMinTotal;
+    }
+
+    private void ensureTotal(int total){
+        if(total < mBuckets.length) return;
+
+        int length = mBuckets.length;
+        while(length <= total) length *= 2;
+
+        NodeStack[][] buckets = new NodeStack[length][];
+        System.arraycopy(mBuckets, 0, buckets, 0, mBuckets.length);
+        mBuckets = buckets;
+
+        int[] counts = new int[length];
+        System.arraycopy(mCountByTotal, 0, counts, 0, mCountByTotal.length);
+        mCountByTotal = counts;
+
+        int[] minEstimates = new int[length];
+        System.arraycopy(mMinEstimateByTotal, 0, minEstimates, 0, mMinEstimateByTotal.length);
+        mMinEstimateByTotal = minEstimates;
+    }
+
+    /**A growable LIFO bucket of nodes*/
+    private static class NodeStack {
+        private Node[] mNodes = new Node[INITIAL_BUCKET_SIZE];
+        private int mSize;
+
+        void push(Node node){
+            if(mSize == mNodes.length){
+                Node[] bigger = new Node[mSize * 2];
+                System.arraycopy(mNodes, 0, bigger, 0, mSize);
+                mNodes = bigger;
+            }
+            mNodes[mSize++] = node;
+        }
+
+        Node pop(){
+            Node node = mNodes[--mSize];
+            //let the node be collected once it's expanded
+            mNodes[mSize] = null;
+            return node;
+        }
+
+        boolean isEmpty(){
+            return mSize == 0;
+        }
+    }
+}
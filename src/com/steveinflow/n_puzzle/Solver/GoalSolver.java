@@ -0,0 +1,18 @@
+package com.steveinflow.n_puzzle.Solver;
+
+/**A search for the moves that take a GameState to a state that solves a Heuristic's goal.
+ * SolveGameTask runs one in the background, reporting to it as a SearchMonitor.
+ */
+public interface GoalSolver {
+
+    /**Search until the goal is solved, the search gives up, or the parent task is cancelled.
+     * @return a node containing the solution state and the MoveQueue to get there,
+     *      or null if no solution was found.
+     */
+    public Node solveGoal();
+
+    public Solver.Status getStatus();
+
+    /**@return what the search has done so far*/
+    public SearchMetrics getMetrics();
+}
@@ -0,0 +1,235 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.io.File;
+import java.util.Random;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseHeuristic;
+
+/**
+ * Solves a whole board on the calling thread, without Android. This is the same
+ * loop GamePlayActivity runs with a SolveGameTask for each goal: get the next goal
+ * from the SolutionStrategy, solve it, and add the moves and any line end
+ * maneuver. Each goal gets the time limit the strategy gives it.
+ *
+ * Goals are solved one at a time, so a strategy's portfolio (see PortfolioSolver)
+ * isn't raced here: the goal is solved with the strategy's algorithm.
+ *
+ * It can be run from the command line with the board size and either a seed to
+ * shuffle with or a csv of the board to solve:
+ *
+ *     java com.steveinflow.n_puzzle.Solver.HeadlessSolver 4 1234
+ *
+ * Set the n_puzzle.tables property to a directory of pattern databases (see
+ * PatternDatabaseBuilder) to map them rather than build them. Missing ones are
+ * built in memory, and the directory is never written to. Set n_puzzle.verbose
+ * to print the solver's log, n_puzzle.metrics to print the SolverMetrics as JSON,
+ * and n_puzzle.trace to a directory to write a SearchTrace of each goal's search to.
+ */
+public class HeadlessSolver implements SearchMonitor {
+    public static final String TAG = "HeadlessSolver";
+
+    /**Solve boards small enough to have pattern databases in the fewest moves,
+     * rather than one tile at a time.*/
+    public static boolean SOLVE_OPTIMALLY = true;
+
+    private final int numDivisions;
+
+    private volatile boolean mCancelled = false;
+    private long mNodesChecked = 0;
+    private long mPeakVisitedStates = 0;
+
+    /**For the goal being solved*/
+    private long mStartTime;
+    private long mTimeLimit;
+    private long mGoalNodesChecked;
+    private boolean mGoalTimedOut;
+    private boolean mOutOfTime;
+    private Node mBestSolution;
+
+    /**@param numDivisions the number of rows or columns on the boards to solve*/
+    public HeadlessSolver(int numDivisions){
+        this.numDivisions = numDivisions;
+    }
+
+    /**Solve the board.
+     * @return the moves from the given state to the solved board,
+     *      or null if a goal couldn't be solved or the solver was cancelled
+     */
+    public MoveQueue solve(GameState gameState){
+        SolutionStrategy strategy;
+        if(SOLVE_OPTIMALLY && OptimalSolutionStrategy.supports(numDivisions)){
+            strategy = new OptimalSolutionStrategy(gameState, numDivisions);
+        }
+        else{
+            strategy = new SolutionStrategy(gameState, numDivisions);
+        }
+
+        MoveQueue moves = new MoveQueue();
+        GameState state = gameState;
+
+        while(!mCancelled){
+            Heuristic heuristic = strategy.getNextGoal(state);
+
+            //strategy finished
+            if(heuristic == null) return moves;
+
+            //some goals have a known solution, so there's nothing to search for
+            Node result;
+            MoveQueue precomputed = strategy.getPrecomputedSolution(state);
+            if(precomputed != null){
+                result = new Node(state, precomputed, precomputed.getStateAfterMoves(state));
+            }
+            else{
+                result = solveGoal(strategy, heuristic, state);
+            }
+
+            if(result == null){
+                if(mCancelled) return null;
+
+                //the fewest moves can take too long to find, so solve it a tile at a time instead
+                if(strategy instanceof OptimalSolutionStrategy){
+                    CoreLog.d(TAG, "No optimal solution in time, solving tile by tile");
+                    strategy = new SolutionStrategy(state, numDivisions);
+                    continue;
+                }
+
+                CoreLog.d(TAG, "Solver failed on goal: " + heuristic.getDescription());
+                return null;
+            }
+
+            strategy.cacheSolution(result);
+            strategy.processSolvedGoal(result.getEndState());
+            moves.addAll(result.getMoveQueue());
+            state = result.getEndState();
+
+            //the next goal starts from after the line end maneuver
+            if(strategy.readyForLineEndManeuver()){
+                MoveQueue maneuver = strategy.lineEndManeuver();
+                moves.addAll(maneuver);
+                for(GameState.Direction move : maneuver){
+                    state = state.makeMove(move);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**Stop solving. solve() returns null.*/
+    public void cancel(){
+        mCancelled = true;
+    }
+
+    /**@return how many nodes the solvers have looked at, over every goal solved*/
+    public long getNodesChecked(){
+        return mNodesChecked;
+    }
+
+    /**@return the most visited states any goal's search held at once*/
+    public long getPeakVisitedStates(){
+        return mPeakVisitedStates;
+    }
+
+    private Node solveGoal(SolutionStrategy strategy, Heuristic heuristic, GameState state){
+        GoalSolver solver = Solver.create(strategy.getAlgorithm(), this, heuristic, state,
+                strategy.getFrozenTiles());
+
+        //building tables for the heuristic doesn't count against the time limit
+        heuristic.prepare();
+
+        mTimeLimit = strategy.getTimeLimit();
+        mGoalNodesChecked = 0;
+        mGoalTimedOut = false;
+        mOutOfTime = false;
+        mBestSolution = null;
+        mStartTime = System.currentTimeMillis();
+
+        long startNanos = System.nanoTime();
+        Node result = solver.solveGoal();
+        SolverMetrics.getMetrics().record(solver, result, System.nanoTime() - startNanos);
+
+        mNodesChecked += mGoalNodesChecked;
+        mPeakVisitedStates = Math.max(mPeakVisitedStates, solver.getMetrics().getPeakVisitedStates());
+        return result;
+    }
+
+    @Override
+    public boolean isCancelled(){
+        return mCancelled || mGoalTimedOut;
+    }
+
+    @Override
+    public void getUpdate(long nodesChecked){
+        mGoalNodesChecked = nodesChecked;
+
+        if(System.currentTimeMillis() - mStartTime > mTimeLimit){
+            if(mBestSolution != null){
+                mOutOfTime = true;
+            }
+            else{
+                CoreLog.d(TAG, "Solver stopping after " + nodesChecked + " nodes with no solution");
+                mGoalTimedOut = true;
+            }
+        }
+    }
+
+    @Override
+    public void publishSolution(Node solution){
+        mBestSolution = solution;
+    }
+
+    @Override
+    public boolean isOutOfTime(){
+        return mOutOfTime;
+    }
+
+    public static void main(String[] args){
+        if(args.length != 2){
+            System.err.println("Usage: HeadlessSolver <divisions> <seed | csv>");
+            System.exit(1);
+        }
+
+        if(Boolean.getBoolean("n_puzzle.verbose")){
+            CoreLog.setLogger(CoreLog.STANDARD_OUT);
+        }
+        String tables = System.getProperty("n_puzzle.tables");
+        if(tables != null){
+            PatternDatabaseHeuristic.setTableDirectory(new File(tables));
+        }
+        String traces = System.getProperty("n_puzzle.trace");
+        if(traces != null){
+            SearchTrace.setDirectory(new File(traces));
+        }
+
+        int numDivisions = Integer.parseInt(args[0]);
+        GameState gameState;
+        if(args[1].contains(",")){
+            gameState = GameState.fromCSV(args[1]);
+        }
+        else{
+            Random random = new Random(Long.parseLong(args[1]));
+            gameState = GameState.shuffle(GameState.buildDefaultShuffle(numDivisions), random);
+        }
+
+        HeadlessSolver solver = new HeadlessSolver(numDivisions);
+        long startTime = System.currentTimeMillis();
+        MoveQueue moves = solver.solve(gameState);
+        long runTime = System.currentTimeMillis() - startTime;
+
+        System.out.println("Board: " + gameState.toCSV());
+        if(moves == null){
+            System.out.println(String.format("No solution after %s milliseconds", runTime));
+            System.exit(2);
+        }
+        System.out.println(String.format(
+                "Solved in %s moves, %s milliseconds, %s nodes checked, %s peak visited states",
+                moves.size(), runTime, solver.getNodesChecked(), solver.getPeakVisitedStates()));
+        System.out.println(moves.toString());
+
+        if(Boolean.getBoolean("n_puzzle.metrics")){
+            System.out.println(SolverMetrics.getMetrics().toJSON());
+        }
+    }
+}
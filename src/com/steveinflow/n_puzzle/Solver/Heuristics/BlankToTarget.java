@@ -1,9 +1,6 @@
 package com.steveinflow.n_puzzle.Solver.Heuristics;
 
-import android.graphics.Point;
-import android.util.Log;
-
-import com.steveinflow.n_puzzle.GamePlayActivity;
+import com.steveinflow.n_puzzle.GameState.CoreLog;
 import com.steveinflow.n_puzzle.GameState.GameState;
 import com.steveinflow.n_puzzle.Solver.Node;
 
@@ -20,6 +17,8 @@ public class BlankToTarget extends Heuristic {
 
     public final String TAG = "BlankToTarget";
 
+    private static final int MACRO_GOAL_TYPE = 1;
+
     /**The index of the tile we would like to move the blank tile toward*/
     private int mTargetIndex;
     /**The direction adjacent to the target where we would like to place the blank tile*/
@@ -31,47 +30,46 @@ public class BlankToTarget extends Heuristic {
     }
 
 
-    /**For each gamestate, find the distance from the blank tile
-     * to the location adjacent to the target tile in the stored direction.
-     * Compare these distances. The lesser distance is better.
+    /**Find the distance from the blank tile to the location adjacent
+     * to the target tile in the stored direction. The lesser distance is better.
      *
-     * @param futureState1 the first state to compare
-     * @param futureState2 the second state to compare
-     * @return a negative number if gamestate1 is better, 0 if they are equal,
-     *      and a positive number if gamestate 2 is better
+     * @param gameState the state to evaluate
+     * @return the Manhattan distance from the blank tile to its destination
      */
     @Override
-    public int compare(Node futureState1, Node futureState2) {
-        GameState gameState1 = futureState1.getEndState();
-        GameState gameState2 = futureState2.getEndState();
-
-        Point blankTile1 = gameState1.getBlankTile();
-        Point targetLoc1 = gameState1.getLocation(mTargetIndex);
-        Point targetAdjacent1 = GameState.getAdjacent(targetLoc1, mDirection);
-
-        Point blankTile2 = gameState2.getBlankTile();
-        Point targetLoc2 = gameState2.getLocation(mTargetIndex);
-        Point targetAdjacent2 = GameState.getAdjacent(targetLoc2, mDirection);
-
-        int distance1 = getDistance(blankTile1, targetAdjacent1);
-        int distance2 = getDistance(blankTile2, targetAdjacent2);
-
-        //Ue the length of the movequeues in the heuristic
-        int total1 = distance1 + futureState1.getMoveQueue().size();
-        int total2 = distance2 + futureState2.getMoveQueue().size();
+    public int estimate(GameState gameState) {
+        int numDivisions = gameState.getNumDivisions();
+        int blankCell = gameState.getBlankCell();
+        int targetCell = gameState.getCellOf(mTargetIndex);
+
+        //the adjacent location can be off the board, so work in rows and columns
+        int adjacentRow = targetCell / numDivisions;
+        int adjacentCol = targetCell % numDivisions;
+        switch(mDirection){
+            case UP: adjacentRow--; break;
+            case DOWN: adjacentRow++; break;
+            case LEFT: adjacentCol--; break;
+            case RIGHT: adjacentCol++; break;
+        }
 
-        //if distance 2 is greater, then gamestate 1 is better
-        int result = total1 - total2;
+        int distance = Math.abs(blankCell / numDivisions - adjacentRow) +
+                Math.abs(blankCell % numDivisions - adjacentCol);
 
-        if(GamePlayActivity.DEBUG_VERBOSE){
-            Log.d(TAG, String.format("Solver: comparing gamestates for heuristic %s: " +
+        if(CoreLog.DEBUG_VERBOSE){
+            CoreLog.d(TAG, String.format("Solver: evaluating gamestate for heuristic %s: " +
                     "\n%s\n" +
-                    "compared to \n%s\n" +
-                    "The result is %s.",
-                    this.getDescription(), gameState1.toString(), gameState2.toString(), result));
+                    "The distance is %s.",
+                    this.getDescription(), gameState.toString(), distance));
         }
 
-        return result;
+        return distance;
+    }
+
+    /**Only the blank tile and the target move the search toward the goal*/
+    @Override
+    public long getMacroKey(GameState gameState){
+        return packMacroKey(MACRO_GOAL_TYPE, gameState.getNumDivisions(), mDirection.ordinal(),
+                gameState.getBlankCell(), gameState.getCellOf(mTargetIndex));
     }
 
     /**If the blank tile is in it's directed place, the goal is solved.
@@ -81,27 +79,12 @@ public class BlankToTarget extends Heuristic {
      */
     @Override
     public boolean checkIfSolved(Node futureState){
-        GameState gameState = futureState.getEndState();
-        Point blankTile = gameState.getBlankTile();
-        Point targetLocation = gameState.getLocation(mTargetIndex);
-        Point adjacentLocation = GameState.getAdjacent(targetLocation, mDirection);
-
-        /*
-        Log.d(TAG, String.format("Checking if solved: gamestate is \n%s" +
-                "\nblankTile is at %s, target is at %s", gameState.toString(),
-                blankTile, adjacentLocation));
-*/
-        int distance = getDistance(blankTile, adjacentLocation);
-
-        if(GamePlayActivity.DEBUG_VERBOSE){
-            Log.d(TAG, "Solver: checking gamestate for solution. \n" + gameState.toString());
-            Log.d(TAG, String.format("Solver: Target location is %s, " +
-                    "Adjacent location is %s, Blank tile location is %s",
-                    targetLocation, adjacentLocation, blankTile));
-            Log.d(TAG, "Solver: distance between blank tile and destination: " + distance);
-        }
+        return checkIfSolved(futureState.getEndState());
+    }
 
-        return distance == 0;
+    @Override
+    public boolean checkIfSolved(GameState gameState){
+        return estimate(gameState) == 0;
     }
 
     @Override
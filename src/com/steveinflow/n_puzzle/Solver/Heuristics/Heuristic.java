@@ -1,26 +1,124 @@
 package com.steveinflow.n_puzzle.Solver.Heuristics;
 
-import android.graphics.Point;
-import android.util.Log;
-
-import com.steveinflow.n_puzzle.GamePlayActivity;
+import com.steveinflow.n_puzzle.GameState.Coordinate;
+import com.steveinflow.n_puzzle.GameState.GameState;
 import com.steveinflow.n_puzzle.Solver.Node;
 
 import java.util.Comparator;
 
 /**A Heuristic is a way of comparing gamestates.
+ *
+ * Each gamestate is evaluated once by estimate() and the result is stored on
+ * its node, so comparing two nodes is only comparing two ints.
  * 
  * Created by stepheno on 7/3/13.
  */
 public abstract class Heuristic implements Comparator<Node> {
+
+    /**getMacroKey() returns this for goals whose solutions can't be reused*/
+    public static final long NO_MACRO_KEY = -1L;
 	
     @Override
-    /**Return which node is "better"*/
-    public abstract int compare(Node futureState1, Node futureState2);
+    /**Return which node is "better": the one with the lower total of moves made plus
+     * estimated moves left. On a tie, prefer the one that is estimated to be closer.*/
+    public int compare(Node futureState1, Node futureState2){
+        int result = futureState1.getTotalCost() - futureState2.getTotalCost();
+        if(result != 0) return result;
+
+        return futureState1.getEstimate() - futureState2.getEstimate();
+    }
+
+    /**Called once before the search starts, and before the solver's time limit
+     * starts counting. Heuristics that need tables built or loaded do it here.*/
+    public void prepare(){
+    }
+
+    /**Return how far the gamestate is from solving the goal.
+     * Lower is better, and 0 should mean the goal is solved.*/
+    public abstract int estimate(GameState gameState);
+
+    /**Return the estimate for a gamestate that was reached by making one move from
+     * a state whose estimate is already known. A move slides one tile one cell, so
+     * heuristics that can update the parent's estimate from that alone override this.
+     * By default the gamestate is evaluated from scratch.
+     *
+     * @param parentEstimate the estimate of the state before the move
+     * @param gameState the state after the move
+     * @param movedTile the index of the tile that slid into the blank space
+     * @param fromCell the cell the tile moved out of (the blank tile's cell after the move)
+     * @param toCell the cell the tile moved into (the blank tile's cell before the move)
+     */
+    public int estimateAfterMove(int parentEstimate, GameState gameState,
+            int movedTile, int fromCell, int toCell){
+        return estimate(gameState);
+    }
+
+    /**Return what the heuristic carries from the gamestate to the states after it,
+     * so it can find their estimates without looking at the whole board again (see
+     * carryAfterMove()). Searches that keep one state and a stack of estimates
+     * keep the carry beside each estimate. By default nothing is carried.*/
+    public long getCarry(GameState gameState){
+        return 0L;
+    }
+
+    /**Return the carry for the state reached by making one move from a state whose
+     * carry is parentCarry. The move's parameters are the same as estimateAfterMove()'s.*/
+    public long carryAfterMove(long parentCarry, int movedTile, int fromCell, int toCell){
+        return 0L;
+    }
+
+    /**estimateAfterMove() for searches that carry, where carry is the state's own
+     * carry from carryAfterMove(). By default the carry isn't used.*/
+    public int estimateAfterMove(int parentEstimate, long carry, GameState gameState,
+            int movedTile, int fromCell, int toCell){
+        return estimateAfterMove(parentEstimate, gameState, movedTile, fromCell, toCell);
+    }
+
+    /**Return true if nodes should be ordered by nothing but their cached integer
+     * costs, as compare() does. The solver can then keep them in buckets rather than
+     * a priority queue. A heuristic that overrides compare() to order nodes some
+     * other way should return false.*/
+    public boolean hasIntegerCosts(){
+        return true;
+    }
 
     /**Return true if  the gamestate is a solution to the goal*/
     public abstract boolean checkIfSolved(Node gameState);
 
+    /**Return true if the gamestate is a solution to the goal. Searches that
+     * don't make a Node for every state use this. By default the state is
+     * wrapped in a Node and passed to checkIfSolved(Node).*/
+    public boolean checkIfSolved(GameState gameState){
+        return checkIfSolved(new Node(gameState));
+    }
+
+    /**Return the one state that solves this goal from the given gamestate, for
+     * searches that work backward from the goal. Return null if more than one
+     * state solves the goal, which is the default.*/
+    public GameState getGoalState(GameState gameState){
+        return null;
+    }
+
+    /**Return a key for this goal from the given gamestate that covers everything
+     * the solution depends on, apart from the frozen cells. Solutions found from
+     * one state can then be reused from any other state with the same key (see
+     * MacroCache). By default solutions depend on the whole board, so there's no key.*/
+    public long getMacroKey(GameState gameState){
+        return NO_MACRO_KEY;
+    }
+
+    /**Pack the parts of a macro key: which kind of goal, the board size, the goal's
+     * own setting (a direction or a destination cell), and the cells of the blank
+     * tile and the goal's target tile.*/
+    protected static long packMacroKey(int goalType, int numDivisions, int goalSetting,
+            int blankCell, int targetCell){
+        return goalType
+                | numDivisions << 4
+                | goalSetting << 8
+                | blankCell << 16
+                | (long)targetCell << 24;
+    }
+
     /**Plain English description of what this heuristic is aiming for*/
     public abstract String getDescription();
 
@@ -30,11 +128,7 @@ public abstract class Heuristic implements Comparator<Node> {
      * @return The Manhattan distance of the first location
      *      from the second location.
      */
-    public int getDistance(Point location1, Point location2){
-        if(GamePlayActivity.DEBUG_VERBOSE){
-            Log.d("Heuristic", String.format("Point 1: %s. Point 2: %s", location1, location2));
-        }
-
+    public int getDistance(Coordinate location1, Coordinate location2){
         if(location1 == null || location2 == null){
             throw new IllegalArgumentException("Heuristic: " +
                     "getDistance called with a null point");
@@ -44,5 +138,16 @@ public abstract class Heuristic implements Comparator<Node> {
         int xDist = Math.abs(location1.x - location2.x);
         return xDist + yDist;
     }
+
+    /**Utility method to determine the xy distance between two cells
+     * numbered row * numDivisions + col.
+     *
+     * @return The Manhattan distance of the first cell from the second cell.
+     */
+    public static int getCellDistance(int cell1, int cell2, int numDivisions){
+        int yDist = Math.abs(cell1 / numDivisions - cell2 / numDivisions);
+        int xDist = Math.abs(cell1 % numDivisions - cell2 % numDivisions);
+        return xDist + yDist;
+    }
 }
 
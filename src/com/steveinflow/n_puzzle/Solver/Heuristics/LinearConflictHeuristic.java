@@ -0,0 +1,140 @@
+package com.steveinflow.n_puzzle.Solver.Heuristics;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+
+/**
+ * Manhattan distance plus linear conflicts.
+ *
+ * Two tiles are in conflict when they're both in the row (or column) they belong
+ * in, but in the wrong order. One of them has to leave the line and come back to
+ * get past the other, which is two moves the Manhattan distance doesn't count.
+ * For each line, the fewest tiles that have to leave it to clear every conflict
+ * are the ones outside its longest run of tiles already in increasing order
+ * (not necessarily next to each other), and each one adds 2 to the estimate.
+ *
+ * A move slides one tile one cell. Moving along a row keeps the order of every
+ * row, so only the two columns it moved between can change, and the other way
+ * around for a move along a column.
+ *
+ * Neither the distances nor the conflicts depend on where the blank tile ends up,
+ * so subclasses can estimate the moves to some other arrangement of the tiles
+ * by giving the cell each tile belongs in.
+ */
+public class LinearConflictHeuristic extends WholeBoardHeuristic {
+
+    /**The cell each tile belongs in, or null if it's the cell matching the tile's index*/
+    private final int[] mGoalCells;
+
+    public LinearConflictHeuristic(){
+        mGoalCells = null;
+    }
+
+    /**Estimate the moves to put every tile where it is in the given state,
+     * rather than in the solved board*/
+    protected LinearConflictHeuristic(GameState goalState){
+        mGoalCells = new int[goalState.getNumTiles() - 1];
+        for(int tile = 0; tile < mGoalCells.length; tile++){
+            mGoalCells[tile] = goalState.getCellOf(tile);
+        }
+    }
+
+    @Override
+    public int estimate(GameState gameState){
+        int total;
+        if(mGoalCells == null){
+            total = getSumOfManhattanDistances(gameState);
+        }
+        else{
+            total = 0;
+            for(int tile = 0; tile < mGoalCells.length; tile++){
+                total += getCellDistance(gameState.getCellOf(tile), mGoalCells[tile],
+                        gameState.getNumDivisions());
+            }
+        }
+
+        for(int line = 0; line < gameState.getNumDivisions(); line++){
+            total += 2 * getLineConflicts(gameState, mGoalCells, true, line, -1, 0, 0);
+            total += 2 * getLineConflicts(gameState, mGoalCells, false, line, -1, 0, 0);
+        }
+        return total;
+    }
+
+    @Override
+    public int estimateAfterMove(int parentEstimate, GameState gameState,
+            int movedTile, int fromCell, int toCell){
+        int numDivisions = gameState.getNumDivisions();
+        int goalCell = (mGoalCells == null) ? movedTile : mGoalCells[movedTile];
+
+        int estimate = parentEstimate
+                - getCellDistance(fromCell, goalCell, numDivisions)
+                + getCellDistance(toCell, goalCell, numDivisions);
+
+        //a tile that stays in its column changes rows, and the other way around
+        boolean changedRows = fromCell % numDivisions == toCell % numDivisions;
+        int fromLine = changedRows ? fromCell / numDivisions : fromCell % numDivisions;
+        int toLine = changedRows ? toCell / numDivisions : toCell % numDivisions;
+
+        estimate += 2 * (getLineConflicts(gameState, mGoalCells, changedRows, fromLine, -1, 0, 0)
+                - getLineConflicts(gameState, mGoalCells, changedRows, fromLine,
+                        movedTile, fromCell, toCell));
+        estimate += 2 * (getLineConflicts(gameState, mGoalCells, changedRows, toLine, -1, 0, 0)
+                - getLineConflicts(gameState, mGoalCells, changedRows, toLine,
+                        movedTile, fromCell, toCell));
+
+        return estimate;
+    }
+
+    /**Count the tiles that have to leave a line to clear its conflicts: the tiles
+     * that belong in the line, less the longest increasing subsequence of where
+     * along the line they belong.
+     *
+     * The subsequence is found by patience sorting. The goals along a line are
+     * different numbers below numDivisions, so the smallest last goal of an
+     * increasing subsequence of each length fits in a bit mask: one bit per goal,
+     * and as many bits as the longest subsequence has tiles.
+     *
+     * @param goalCells the cell each tile belongs in, or null for the solved board
+     * @param isRow true for a row, false for a column
+     * @param line the row or column number
+     * @param movedTile -1 to look at the gamestate as it is. Otherwise look at the
+     *      state before movedTile slid from fromCell into toCell.
+     */
+    private static int getLineConflicts(GameState gameState, int[] goalCells, boolean isRow,
+            int line, int movedTile, int fromCell, int toCell){
+        int numDivisions = gameState.getNumDivisions();
+
+        int count = 0;
+        int tails = 0;
+
+        for(int i = 0; i < numDivisions; i++){
+            int cell = isRow ? line * numDivisions + i : i * numDivisions + line;
+
+            int tile;
+            if(movedTile == -1 || (cell != fromCell && cell != toCell)){
+                tile = gameState.getByCell(cell);
+            }
+            else{
+                tile = (cell == fromCell) ? movedTile : -1;
+            }
+            if(tile == -1) continue;
+
+            int goalCell = (goalCells == null) ? tile : goalCells[tile];
+            int goalLine = isRow ? goalCell / numDivisions : goalCell % numDivisions;
+            if(goalLine != line) continue;
+
+            int goal = isRow ? goalCell % numDivisions : goalCell / numDivisions;
+            count++;
+
+            //the goal replaces the smallest tail above it, or makes a longer subsequence
+            int higher = tails & -(1 << goal);
+            tails = (tails & ~Integer.lowestOneBit(higher)) | (1 << goal);
+        }
+
+        return count - Integer.bitCount(tails);
+    }
+
+    @Override
+    public String getDescription(){
+        return "Solving the whole board, estimating with linear conflicts.";
+    }
+}
@@ -0,0 +1,370 @@
+package com.steveinflow.n_puzzle.Solver.Heuristics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
+
+/**A pattern database for one group of tiles.
+ *
+ * For every placement of the group's tiles on the board, the database holds the
+ * fewest moves of those tiles it takes to put them all where they belong. Moves of
+ * other tiles are free, so the databases for groups that don't share a tile can
+ * be added together and still never overestimate the moves left.
+ *
+ * Those move counts are never less than the tiles' Manhattan distances, and differ
+ * from them by an even number, so only half the difference is stored, one nibble a
+ * placement. Differences past MAX_EXCESS are stored as MAX_EXCESS, which keeps
+ * the estimate a lower bound.
+ *
+ * Placements are numbered by the cell of each tile in turn, counting only the cells
+ * not already taken by an earlier tile: (numCells) * (numCells - 1) * ... of them.
+ *
+ * A database can be written to a file and loaded back with the file memory mapped,
+ * so the table stays out of the heap. The file is a header followed by the
+ * nibbles exactly as they're kept in memory:
+ *
+ *     int    FILE_MAGIC
+ *     int    FILE_VERSION
+ *     int    numDivisions
+ *     int    number of tiles in the group
+ *     byte   each tile index
+ *     int    number of placements
+ *     byte[] (placements + 1) / 2 bytes of nibbles, even placements in the low nibble
+ */
+public class PatternDatabase {
+    private static final int MAX_EXCESS = 0xF;
+
+    /**"NPDB"*/
+    private static final int FILE_MAGIC = 0x4E504442;
+    private static final int FILE_VERSION = 1;
+
+    private final int numDivisions;
+    private final int numCells;
+    private final int[] mTiles;
+    private final int mSize;
+
+    /**Half the moves over the Manhattan distance for each placement, two per byte.
+     * Either wraps an array on the heap or is mapped from a file.*/
+    private ByteBuffer mExcess;
+
+    /**@param tiles the tile indexes in the group. The blank tile can't be one of them.*/
+    public PatternDatabase(int numDivisions, int[] tiles){
+        this.numDivisions = numDivisions;
+        this.numCells = numDivisions * numDivisions;
+        this.mTiles = tiles.clone();
+
+        int size = 1;
+        for(int i = 0; i < tiles.length; i++){
+            size *= numCells - i;
+        }
+        this.mSize = size;
+    }
+
+    public int getNumDivisions(){
+        return numDivisions;
+    }
+
+    public int[] getTiles(){
+        return mTiles.clone();
+    }
+
+    /**@return the number of placements of the group's tiles*/
+    public int getSize(){
+        return mSize;
+    }
+
+    public boolean isBuilt(){
+        return mExcess != null;
+    }
+
+    /**@return the placement number for the group's tiles in the given state*/
+    public int getIndex(GameState gameState){
+        return getIndex(gameState, -1, 0);
+    }
+
+    /**@return the placement number for the group's tiles in the given state,
+     * but with the given tile in the given cell instead of where it is.
+     * A tile of -1 changes nothing.*/
+    public int getIndex(GameState gameState, int tile, int cell){
+        int index = 0;
+        long used = 0L;
+
+        for(int i = 0; i < mTiles.length; i++){
+            int tileCell = (mTiles[i] == tile) ? cell : gameState.getCellOf(mTiles[i]);
+            index = index * (numCells - i) + tileCell - Long.bitCount(used & ((1L << tileCell) - 1));
+            used |= 1L << tileCell;
+        }
+        return index;
+    }
+
+    /**@return how many more moves than their Manhattan distances the group's tiles
+     * need to get home from the given placement*/
+    public int getExtraMoves(int index){
+        int packed = mExcess.get(index >> 1);
+        int excess = ((index & 1) == 0) ? packed & 0xF : (packed >> 4) & 0xF;
+        return excess * 2;
+    }
+
+    /**Work out the database by breadth first search back from the solved board.
+     *
+     * The search is over the group's placements along with the blank tile's cell.
+     * Sliding a tile from outside the group is free, so from each placement the
+     * blank tile is first spread over every cell it can reach that way. Each layer
+     * of the search is one more move of a tile in the group. Layers are kept as
+     * bitsets, one bit per placement and blank cell.
+     */
+    public void build(){
+        MoveTable moveTable = MoveTable.forDivisions(numDivisions);
+        int numStates = mSize * numCells;
+
+        long[] visited = new long[(numStates + 63) >>> 6];
+        long[] layer = new long[visited.length];
+        long[] nextLayer = new long[visited.length];
+
+        byte[] moves = new byte[mSize];
+        Arrays.fill(moves, (byte)-1);
+
+        int[] cells = new int[mTiles.length];
+
+        //start from the solved board: each tile in its own cell, the blank in the last
+        for(int i = 0; i < mTiles.length; i++){
+            cells[i] = mTiles[i];
+        }
+        int start = rank(cells) * numCells + numCells - 1;
+        setBit(visited, start);
+        setBit(layer, start);
+
+        for(int depth = 0; !isEmpty(layer); depth++){
+            int placement = -1;
+            long blankCells = 0L;
+
+            //group the layer's bits by placement, which come in order
+            for(int word = 0; word < layer.length; word++){
+                long bits = layer[word];
+                while(bits != 0L){
+                    int state = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+
+                    if(state / numCells != placement){
+                        if(placement != -1){
+                            expand(placement, blankCells, depth, cells, moveTable,
+                                    moves, visited, nextLayer);
+                        }
+                        placement = state / numCells;
+                        blankCells = 0L;
+                    }
+                    blankCells |= 1L << (state % numCells);
+                }
+            }
+            if(placement != -1){
+                expand(placement, blankCells, depth, cells, moveTable, moves, visited, nextLayer);
+            }
+
+            long[] swap = layer;
+            layer = nextLayer;
+            nextLayer = swap;
+            Arrays.fill(nextLayer, 0L);
+        }
+
+        byte[] excess = new byte[(mSize + 1) / 2];
+        for(int index = 0; index < mSize; index++){
+            if(moves[index] < 0) continue;
+
+            unrank(index, cells);
+            int distance = 0;
+            for(int i = 0; i < mTiles.length; i++){
+                distance += Heuristic.getCellDistance(cells[i], mTiles[i], numDivisions);
+            }
+
+            int half = Math.min((moves[index] - distance) / 2, MAX_EXCESS);
+            excess[index >> 1] |= ((index & 1) == 0) ? half : half << 4;
+        }
+        mExcess = ByteBuffer.wrap(excess);
+    }
+
+    /**@return the name this database is written under, which tells the board size
+     * and the tiles in the group apart*/
+    public String getFileName(){
+        StringBuilder builder = new StringBuilder("pattern_");
+        builder.append(numDivisions).append('x').append(numDivisions);
+        for(int tile : mTiles){
+            builder.append('_').append(tile);
+        }
+        return builder.append(".pdb").toString();
+    }
+
+    /**Write the database, which must be built or loaded, to the given file*/
+    public void write(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+        try{
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(numDivisions);
+            out.writeInt(mTiles.length);
+            for(int tile : mTiles){
+                out.writeByte(tile);
+            }
+            out.writeInt(mSize);
+
+            ByteBuffer excess = mExcess.duplicate();
+            excess.clear();
+            byte[] chunk = new byte[8192];
+            while(excess.hasRemaining()){
+                int length = Math.min(chunk.length, excess.remaining());
+                excess.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        }
+        finally{
+            out.close();
+        }
+    }
+
+    /**Map the table from a file written by write(). The mapping is read only and
+     * outlives the file being closed, so loading costs no more heap than the header.
+     *
+     * @throws IOException if the file can't be read, or was written for a different
+     *      board size or group of tiles
+     */
+    public void load(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try{
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.getInt() != FILE_MAGIC || buffer.getInt() != FILE_VERSION){
+                throw new IOException(file + " is not a pattern database");
+            }
+            if(buffer.getInt() != numDivisions || buffer.getInt() != mTiles.length){
+                throw new IOException(file + " is for a different board or group of tiles");
+            }
+            for(int tile : mTiles){
+                if(buffer.get() != tile){
+                    throw new IOException(file + " is for a different group of tiles");
+                }
+            }
+            if(buffer.getInt() != mSize || buffer.remaining() != (mSize + 1) / 2){
+                throw new IOException(file + " is the wrong size");
+            }
+
+            mExcess = buffer.slice();
+        }
+        finally{
+            in.close();
+        }
+    }
+
+    /**Visit everything one move of a group tile away from the placement with the
+     * blank tile in any of the given cells.*/
+    private void expand(int placement, long blankCells, int depth, int[] cells,
+            MoveTable moveTable, byte[] moves, long[] visited, long[] nextLayer){
+        if(moves[placement] < 0){
+            moves[placement] = (byte)depth;
+        }
+
+        unrank(placement, cells);
+        long occupied = 0L;
+        for(int cell : cells){
+            occupied |= 1L << cell;
+        }
+
+        //spread the blank tile over the cells it can reach without moving a group tile
+        long region = blankCells;
+        long frontier = blankCells;
+        while(frontier != 0L){
+            int cell = Long.numberOfTrailingZeros(frontier);
+            frontier &= frontier - 1;
+
+            for(GameState.Direction move : MoveTable.MOVE_ORDER){
+                int target = moveTable.getTarget(cell, move);
+                if(target == MoveTable.NO_MOVE) continue;
+
+                long bit = 1L << target;
+                if((occupied & bit) == 0L && (region & bit) == 0L){
+                    region |= bit;
+                    frontier |= bit;
+                    setBit(visited, placement * numCells + target);
+                }
+            }
+        }
+
+        //slide each group tile next to the region into it
+        long remaining = region;
+        while(remaining != 0L){
+            int blankCell = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+
+            for(GameState.Direction move : MoveTable.MOVE_ORDER){
+                int target = moveTable.getTarget(blankCell, move);
+                if(target == MoveTable.NO_MOVE || (occupied & (1L << target)) == 0L) continue;
+
+                int tile = 0;
+                while(cells[tile] != target) tile++;
+
+                cells[tile] = blankCell;
+                int state = rank(cells) * numCells + target;
+                cells[tile] = target;
+
+                if(!getBit(visited, state)){
+                    setBit(visited, state);
+                    setBit(nextLayer, state);
+                }
+            }
+        }
+    }
+
+    private int rank(int[] cells){
+        int index = 0;
+        long used = 0L;
+        for(int i = 0; i < cells.length; i++){
+            index = index * (numCells - i) + cells[i] - Long.bitCount(used & ((1L << cells[i]) - 1));
+            used |= 1L << cells[i];
+        }
+        return index;
+    }
+
+    private void unrank(int index, int[] cells){
+        //peel off the digits, last tile first
+        for(int i = cells.length - 1; i >= 0; i--){
+            cells[i] = index % (numCells - i);
+            index /= numCells - i;
+        }
+
+        //each digit counts the free cells before the tile's cell
+        long used = 0L;
+        for(int i = 0; i < cells.length; i++){
+            int cell = 0;
+            for(int free = cells[i]; ; cell++){
+                if((used & (1L << cell)) != 0L) continue;
+                if(free-- == 0) break;
+            }
+            cells[i] = cell;
+            used |= 1L << cell;
+        }
+    }
+
+    private static void setBit(long[] bits, int index){
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static boolean getBit(long[] bits, int index){
+        return (bits[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    private static boolean isEmpty(long[] bits){
+        for(long word : bits){
+            if(word != 0L) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.steveinflow.n_puzzle.Solver.Heuristics;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+
+/**
+ * Builds the pattern databases for every board size ahead of time,
+ * so the app can map them from files instead of building them on the device.
+ * Run it on a desktop JVM with the output directory as the only argument:
+ *
+ *     java com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseBuilder tables/
+ *
+ * and copy the .pdb files into the directory given to
+ * PatternDatabaseHeuristic.setTableDirectory(). The app ships the 3 x 3 and 4 x 4
+ * files in assets/pattern_databases, and copies them from there the first time
+ * they're needed; rebuild them whenever the file format or PARTITIONS change.
+ * The 5 x 5 databases need a few hundred MB of heap to build.
+ */
+public class PatternDatabaseBuilder {
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1){
+            System.err.println("Usage: PatternDatabaseBuilder <output directory>");
+            System.exit(1);
+        }
+
+        File directory = new File(args[0]);
+        if(!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Couldn't make directory " + directory);
+        }
+
+        for(int numDivisions = 2; numDivisions <= FrozenCells.MAX_DIVISIONS; numDivisions++){
+            if(!PatternDatabaseHeuristic.supports(numDivisions)) continue;
+
+            for(int[] tiles : PatternDatabaseHeuristic.getPartition(numDivisions)){
+                PatternDatabase database = new PatternDatabase(numDivisions, tiles);
+                File file = new File(directory, database.getFileName());
+
+                long startTime = System.currentTimeMillis();
+                database.build();
+                database.write(file);
+
+                System.out.println(String.format("%s: %s placements, %s bytes, %s milliseconds",
+                        file.getName(), database.getSize(), file.length(),
+                        System.currentTimeMillis() - startTime));
+            }
+        }
+    }
+}
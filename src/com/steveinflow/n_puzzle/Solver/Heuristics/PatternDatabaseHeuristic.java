@@ -0,0 +1,246 @@
+package com.steveinflow.n_puzzle.Solver.Heuristics;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+
+/**
+ * Solves the whole board at once. The estimate is the Manhattan distance of every
+ * tile plus the extra moves that disjoint pattern databases say each group of
+ * tiles needs on top of that. The groups don't share tiles, so the estimate never
+ * overestimates, and IDA* with it finds the shortest solution.
+ *
+ * The databases are loaded the first time prepare() is called for a board size,
+ * and shared from then on. If setTableDirectory() has been called, they're mapped
+ * from the files there (see PatternDatabaseBuilder to make them ahead of time).
+ * A database with no file is built on the spot.
+ *
+ * The directory is only read unless setWriteTables(true) is called as well. Then
+ * a file missing from it is copied in from the TableSource, if one has been set
+ * and has it, and a database that had to be built is written there so the next
+ * start doesn't have to build it again.
+ */
+public class PatternDatabaseHeuristic extends WholeBoardHeuristic {
+    public static final String TAG = "PatternDatabaseHeuristic";
+
+    /**The groups of tiles for each board size, indexed by numDivisions. Sizes
+     * without groups aren't supported.*/
+    private static final int[][][] PARTITIONS = new int[FrozenCells.MAX_DIVISIONS + 1][][];
+    static {
+        //3 x 3: a single group holds every tile, so the estimate is exact
+        PARTITIONS[3] = new int[][]{ {0, 1, 2, 3, 4, 5, 6, 7} };
+
+        //4 x 4: 6-6-3
+        PARTITIONS[4] = new int[][]{
+                {0, 1, 4, 5, 8, 12},
+                {2, 3, 6, 7, 10, 11},
+                {9, 13, 14} };
+
+        //5 x 5: 5-5-5-5-4
+        PARTITIONS[5] = new int[][]{
+                {0, 1, 2, 5, 6},
+                {3, 4, 7, 8, 9},
+                {10, 11, 15, 16, 20},
+                {12, 13, 14, 17, 18},
+                {19, 21, 22, 23} };
+    }
+
+    /**Somewhere prebuilt database files can be read from, such as the app's assets*/
+    public interface TableSource {
+        /**@return the contents of the named file
+         * @throws IOException if there's no such file*/
+        InputStream open(String fileName) throws IOException;
+    }
+
+    private static File sTableDirectory;
+    private static TableSource sTableSource;
+    private static boolean sWriteTables = false;
+
+    private static final PatternDatabase[][] sDatabases =
+            new PatternDatabase[FrozenCells.MAX_DIVISIONS + 1][];
+
+    private final int numDivisions;
+    private PatternDatabase[] mDatabases;
+    /**The database holding each tile*/
+    private PatternDatabase[] mDatabaseOfTile;
+
+    /**Map the databases' files from the given directory, or don't use files if null.
+     * Nothing is written there unless setWriteTables(true) is called too.*/
+    public static synchronized void setTableDirectory(File directory){
+        sTableDirectory = directory;
+    }
+
+    /**Copy files missing from the table directory from the given source, or don't
+     * if null. Only done when the directory can be written to (see setWriteTables()).*/
+    public static synchronized void setTableSource(TableSource source){
+        sTableSource = source;
+    }
+
+    /**Let files missing from the table directory be copied or built into it*/
+    public static synchronized void setWriteTables(boolean writeTables){
+        sWriteTables = writeTables;
+    }
+
+    /**@return the groups of tiles the databases for boards of this size cover*/
+    public static int[][] getPartition(int numDivisions){
+        return PARTITIONS[numDivisions];
+    }
+
+    /**@return true if there are pattern databases for boards of this size*/
+    public static boolean supports(int numDivisions){
+        return numDivisions < PARTITIONS.length && PARTITIONS[numDivisions] != null;
+    }
+
+    public PatternDatabaseHeuristic(int numDivisions){
+        if(!supports(numDivisions)){
+            throw new IllegalArgumentException(
+                    "No pattern databases for a board with " + numDivisions + " divisions");
+        }
+        this.numDivisions = numDivisions;
+    }
+
+    /**Build the databases for this board size, if nobody has yet*/
+    @Override
+    public void prepare(){
+        if(mDatabases != null) return;
+
+        mDatabases = getDatabases(numDivisions);
+        mDatabaseOfTile = new PatternDatabase[numDivisions * numDivisions];
+        for(PatternDatabase database : mDatabases){
+            for(int tile : database.getTiles()){
+                mDatabaseOfTile[tile] = database;
+            }
+        }
+    }
+
+    private static synchronized PatternDatabase[] getDatabases(int numDivisions){
+        if(sDatabases[numDivisions] == null){
+            long startTime = System.currentTimeMillis();
+
+            int[][] partition = PARTITIONS[numDivisions];
+            PatternDatabase[] databases = new PatternDatabase[partition.length];
+            for(int i = 0; i < partition.length; i++){
+                databases[i] = new PatternDatabase(numDivisions, partition[i]);
+                loadOrBuild(databases[i]);
+            }
+            sDatabases[numDivisions] = databases;
+
+            CoreLog.d(TAG, String.format("Pattern databases for %s divisions ready in %s milliseconds",
+                    numDivisions, System.currentTimeMillis() - startTime));
+        }
+        return sDatabases[numDivisions];
+    }
+
+    /**Map the database from its file if there is one, copying the file from the
+     * table source first if it's only there and the directory can be written.
+     * Otherwise build it, and write it out for next time if the directory can be.*/
+    private static void loadOrBuild(PatternDatabase database){
+        File file = (sTableDirectory == null) ? null
+                : new File(sTableDirectory, database.getFileName());
+
+        if(file != null && !file.exists() && sTableSource != null && sWriteTables){
+            copyFromSource(database.getFileName(), file);
+        }
+
+        if(file != null && file.exists()){
+            try{
+                database.load(file);
+                return;
+            }
+            catch(IOException e){
+                CoreLog.d(TAG, "Couldn't load " + file + ", building it instead: " + e.getMessage());
+            }
+        }
+
+        database.build();
+
+        if(file != null && sWriteTables){
+            try{
+                database.write(file);
+            }
+            catch(IOException e){
+                CoreLog.d(TAG, "Couldn't write " + file + ": " + e.getMessage());
+                file.delete();
+            }
+        }
+    }
+
+    private static void copyFromSource(String fileName, File file){
+        File partFile = new File(file.getPath() + ".part");
+        InputStream in = null;
+        OutputStream out = null;
+        try{
+            in = sTableSource.open(fileName);
+            out = new FileOutputStream(partFile);
+
+            byte[] buffer = new byte[64 * 1024];
+            int count;
+            while((count = in.read(buffer)) != -1){
+                out.write(buffer, 0, count);
+            }
+            out.close();
+            out = null;
+
+            //renamed only once whole, so a copy cut short is never mapped
+            if(!partFile.renameTo(file)){
+                throw new IOException("Couldn't rename " + partFile);
+            }
+        }
+        catch(IOException e){
+            CoreLog.d(TAG, "Couldn't copy " + fileName + ": " + e.getMessage());
+        }
+        finally{
+            closeQuietly(in);
+            closeQuietly(out);
+            partFile.delete();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable){
+        if(closeable == null) return;
+        try{
+            closeable.close();
+        }
+        catch(IOException e){
+            //nothing left to do with it
+        }
+    }
+
+    @Override
+    public int estimate(GameState gameState){
+        prepare();
+
+        int total = getSumOfManhattanDistances(gameState);
+        for(PatternDatabase database : mDatabases){
+            total += database.getExtraMoves(database.getIndex(gameState));
+        }
+        return total;
+    }
+
+    /**Only the moved tile's distance and its own group's extra moves change*/
+    @Override
+    public int estimateAfterMove(int parentEstimate, GameState gameState,
+            int movedTile, int fromCell, int toCell){
+        PatternDatabase database = mDatabaseOfTile[movedTile];
+
+        int before = database.getExtraMoves(database.getIndex(gameState, movedTile, fromCell));
+        int after = database.getExtraMoves(database.getIndex(gameState));
+
+        return parentEstimate
+                - getCellDistance(fromCell, movedTile, numDivisions)
+                + getCellDistance(toCell, movedTile, numDivisions)
+                - before + after;
+    }
+
+    @Override
+    public String getDescription(){
+        return "Solving the whole board in the fewest moves.";
+    }
+}
@@ -0,0 +1,39 @@
+package com.steveinflow.n_puzzle.Solver.Heuristics;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Node;
+
+/**
+ * Manhattan distance plus linear conflicts to a given state, rather than to the
+ * solved board. BidirectionalSolver searches back from the goal with it, toward
+ * the state the forward search started from.
+ */
+public class StateDistanceHeuristic extends LinearConflictHeuristic {
+    private final GameState mGoalState;
+
+    public StateDistanceHeuristic(GameState goalState){
+        super(goalState);
+        mGoalState = new GameState(goalState);
+    }
+
+    /**Solved when every tile, and so the blank tile, is where it is in the goal state*/
+    @Override
+    public boolean checkIfSolved(GameState gameState){
+        return mGoalState.equals(gameState);
+    }
+
+    @Override
+    public boolean checkIfSolved(Node futureState){
+        return checkIfSolved(futureState.getEndState());
+    }
+
+    @Override
+    public GameState getGoalState(GameState gameState){
+        return new GameState(mGoalState);
+    }
+
+    @Override
+    public String getDescription(){
+        return "Reaching a given board, estimating with linear conflicts.";
+    }
+}
@@ -1,9 +1,7 @@
 package com.steveinflow.n_puzzle.Solver.Heuristics;
 
-import android.graphics.Point;
-
+import com.steveinflow.n_puzzle.GameState.Coordinate;
 import com.steveinflow.n_puzzle.GameState.GameState;
-import com.steveinflow.n_puzzle.Solver.MoveQueue;
 import com.steveinflow.n_puzzle.Solver.Node;
 
 /**
@@ -18,50 +16,57 @@ import com.steveinflow.n_puzzle.Solver.Node;
  */
 public class TargetToDestination extends Heuristic {
 
+    /**Moving the target one space takes several moves of the blank tile,
+     * so the target's distance counts for more than the moves made so far.*/
+    private static final int DISTANCE_WEIGHT = 5;
+
+    private static final int MACRO_GOAL_TYPE = 2;
+
     /**The index of the tile we would like to move*/
     private int mTargetIndex;
     /**The location (row, column) where we'd like to move the target*/
-    Point mDestination;
+    Coordinate mDestination;
 
-    public TargetToDestination(int targetIndex, Point destination){
+    public TargetToDestination(int targetIndex, Coordinate destination){
         this.mTargetIndex = targetIndex;
         this.mDestination = destination;
     }
 
-    /**For each GameState, find the distance of the target tile
-     * from its desired location. Compare these distances. The lower
-     * number wins.
+    /**Find the distance of the target tile from its desired location.
+     * The lower number wins.
      *
-     * @param futureState1 the first state to compare
-     * @param futureState2 the seconds tate to compare
-     * @return A negative number if gameState1 is worse, 0 if the
-     *      gameStates are equal, or a positive number if gameState1
-     *      is better
+     * @param gameState the state to evaluate
+     * @return the weighted distance of the target from its destination
      */
     @Override
-    public int compare(Node futureState1, Node futureState2) {
-
-        GameState gameState1 = futureState1.getEndState();
-        GameState gameState2 = futureState2.getEndState();
+    public int estimate(GameState gameState) {
+        int numDivisions = gameState.getNumDivisions();
+        int destinationCell = mDestination.y * numDivisions + mDestination.x;
+        return getCellDistance(gameState.getCellOf(mTargetIndex), destinationCell, numDivisions)
+                * DISTANCE_WEIGHT;
+    }
 
-        Point targetLoc1 = gameState1.getLocation(mTargetIndex);
-        Point targetLoc2 = gameState2.getLocation(mTargetIndex);
-        
-        MoveQueue moveQueue1 = futureState1.getMoveQueue();
-        MoveQueue moveQueue2 = futureState2.getMoveQueue();
+    /**The estimate only depends on the target, so it only changes when
+     * the target is the tile that moved.*/
+    @Override
+    public int estimateAfterMove(int parentEstimate, GameState gameState,
+            int movedTile, int fromCell, int toCell){
+        if(movedTile != mTargetIndex){
+            return parentEstimate;
+        }
 
-        int distance1 = getDistance(targetLoc1, mDestination);
-        int distance2 = getDistance(targetLoc2, mDestination);
-        
-        final int DISTANCE_WEIGHT = 5;
-        
-        //Use the length of the movequeue as a secondary heuristic- shorter path length is better
-        int total1 = distance1 * DISTANCE_WEIGHT + moveQueue1.size();
-        int total2 = distance2 * DISTANCE_WEIGHT + moveQueue2.size();
+        int numDivisions = gameState.getNumDivisions();
+        int destinationCell = mDestination.y * numDivisions + mDestination.x;
+        return getCellDistance(toCell, destinationCell, numDivisions) * DISTANCE_WEIGHT;
+    }
 
-        //if distance 2 is greater, then gamestate 1 is better
-        int result = total1 - total2;
-        return result;
+    /**Only the blank tile and the target move the search toward the goal*/
+    @Override
+    public long getMacroKey(GameState gameState){
+        int numDivisions = gameState.getNumDivisions();
+        int destinationCell = mDestination.y * numDivisions + mDestination.x;
+        return packMacroKey(MACRO_GOAL_TYPE, numDivisions, destinationCell,
+                gameState.getBlankCell(), gameState.getCellOf(mTargetIndex));
     }
 
     /**If the target is in its destination in the given gamestate,
@@ -69,9 +74,13 @@ public class TargetToDestination extends Heuristic {
      */
     @Override
     public boolean checkIfSolved(Node futureState){
-        GameState gameState = futureState.getEndState();
-        Point location = gameState.getLocation(mTargetIndex);
-        return getDistance(location, mDestination) == 0;
+        return checkIfSolved(futureState.getEndState());
+    }
+
+    @Override
+    public boolean checkIfSolved(GameState gameState){
+        int destinationCell = mDestination.y * gameState.getNumDivisions() + mDestination.x;
+        return gameState.getCellOf(mTargetIndex) == destinationCell;
     }
 
     @Override
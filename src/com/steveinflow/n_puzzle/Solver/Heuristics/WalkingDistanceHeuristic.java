@@ -0,0 +1,96 @@
+package com.steveinflow.n_puzzle.Solver.Heuristics;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+
+/**
+ * The walking distance of the rows plus the walking distance of the columns
+ * (see WalkingDistanceTable). Moves up and down only change the rows' counts and
+ * moves left and right only the columns', so the two never count the same move.
+ * It's usually well above the Manhattan distance, since it sees that tiles
+ * heading the same way get in each other's way.
+ *
+ * The carry (see Heuristic.getCarry()) is the table index of the rows in the low
+ * half and of the columns in the high half, so a search that carries it finds each
+ * estimate with two lookups.
+ */
+public class WalkingDistanceHeuristic extends WholeBoardHeuristic {
+    private final int numDivisions;
+    private WalkingDistanceTable mTable;
+
+    /**@return true if there's a walking distance table for boards of this size*/
+    public static boolean supports(int numDivisions){
+        return numDivisions <= WalkingDistanceTable.MAX_DIVISIONS;
+    }
+
+    public WalkingDistanceHeuristic(int numDivisions){
+        if(!supports(numDivisions)){
+            throw new IllegalArgumentException(
+                    "No walking distance table for a board with " + numDivisions + " divisions");
+        }
+        this.numDivisions = numDivisions;
+    }
+
+    @Override
+    public void prepare(){
+        if(mTable == null){
+            mTable = WalkingDistanceTable.forDivisions(numDivisions);
+        }
+    }
+
+    @Override
+    public int estimate(GameState gameState){
+        prepare();
+        return mTable.getDistance(mTable.getKey(gameState, true))
+                + mTable.getDistance(mTable.getKey(gameState, false));
+    }
+
+    /**Only the rows' or the columns' distance changes. The parent's index is the
+     * child's with the move taken back.*/
+    @Override
+    public int estimateAfterMove(int parentEstimate, GameState gameState,
+            int movedTile, int fromCell, int toCell){
+        boolean changedRows = fromCell % numDivisions == toCell % numDivisions;
+
+        int fromLine = changedRows ? fromCell / numDivisions : fromCell % numDivisions;
+        int toLine = changedRows ? toCell / numDivisions : toCell % numDivisions;
+        int goalLine = changedRows ? movedTile / numDivisions : movedTile % numDivisions;
+
+        int index = mTable.getIndex(mTable.getKey(gameState, changedRows));
+        int parentIndex = mTable.getNeighbour(index, goalLine, toLine > fromLine);
+
+        return parentEstimate - mTable.getDistanceAt(parentIndex) + mTable.getDistanceAt(index);
+    }
+
+    @Override
+    public long getCarry(GameState gameState){
+        prepare();
+        long rows = mTable.getIndex(mTable.getKey(gameState, true));
+        long columns = mTable.getIndex(mTable.getKey(gameState, false));
+        return (columns << 32) | (rows & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public long carryAfterMove(long parentCarry, int movedTile, int fromCell, int toCell){
+        int rows = (int)parentCarry;
+        int columns = (int)(parentCarry >>> 32);
+
+        if(fromCell % numDivisions == toCell % numDivisions){
+            rows = mTable.getNeighbour(rows, movedTile / numDivisions, fromCell > toCell);
+        }
+        else{
+            columns = mTable.getNeighbour(columns, movedTile % numDivisions, fromCell > toCell);
+        }
+        return ((long)columns << 32) | (rows & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int estimateAfterMove(int parentEstimate, long carry, GameState gameState,
+            int movedTile, int fromCell, int toCell){
+        return mTable.getDistanceAt((int)carry) + mTable.getDistanceAt((int)(carry >>> 32));
+    }
+
+    @Override
+    public String getDescription(){
+        return "Solving the whole board, estimating with walking distances.";
+    }
+}
@@ -0,0 +1,190 @@
+package com.steveinflow.n_puzzle.Solver.Heuristics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+
+/**Walking distances for one board size.
+ *
+ * Looking only at rows, a board comes down to how many tiles in each row belong
+ * in each row, and which row the blank tile is in. A move up or down takes one
+ * tile from the blank's neighboring row into the blank's row. The walking distance
+ * is the fewest such moves from a board's counts to the solved board's, which
+ * never overestimates the moves of a real board up or down. Columns work the
+ * same way with the board flipped over its diagonal, so the same table covers both.
+ *
+ * Counts are packed into a key, 3 bits for each (row, goal row) pair and the
+ * blank's row above them. The table is built once per board size by breadth first
+ * search back from the solved board, and kept as sorted keys with their distances.
+ * Each key's place in that order is its index, and for every index the table also
+ * keeps the index each move leads to, so a search that carries the index from
+ * state to state never has to look at the whole board again.
+ */
+public class WalkingDistanceTable {
+    /**The keys have room for counts up to 7 in 16 pairs*/
+    public static final int MAX_DIVISIONS = 4;
+
+    private static final int BITS_PER_COUNT = 3;
+    private static final WalkingDistanceTable[] sTables = new WalkingDistanceTable[MAX_DIVISIONS + 1];
+
+    private final int numDivisions;
+    private final int mBlankShift;
+    private final long[] mKeys;
+    private final byte[] mDistances;
+    /**The index each move leads to, or NO_INDEX if there's no such tile to move.
+     * Indexed by getNeighbourSlot().*/
+    private final int[] mNeighbours;
+
+    /**getIndex() returns this for a key that can't happen*/
+    public static final int NO_INDEX = -1;
+
+    /**Return the shared table for the given board size, building it the first time.*/
+    public static synchronized WalkingDistanceTable forDivisions(int numDivisions){
+        if(numDivisions > MAX_DIVISIONS){
+            throw new IllegalArgumentException(String.format(
+                    "Walking distances go up to %s divisions, got %s", MAX_DIVISIONS, numDivisions));
+        }
+
+        if(sTables[numDivisions] == null){
+            sTables[numDivisions] = new WalkingDistanceTable(numDivisions);
+        }
+        return sTables[numDivisions];
+    }
+
+    private WalkingDistanceTable(int numDivisions){
+        this.numDivisions = numDivisions;
+        this.mBlankShift = numDivisions * numDivisions * BITS_PER_COUNT;
+
+        //the solved board: every row full of its own tiles, the last one short the blank
+        long start = (long)(numDivisions - 1) << mBlankShift;
+        for(int row = 0; row < numDivisions; row++){
+            int count = (row == numDivisions - 1) ? numDivisions - 1 : numDivisions;
+            start += (long)count << getShift(row, row);
+        }
+
+        HashMap<Long, Integer> distances = new HashMap<Long, Integer>();
+        ArrayList<Long> queue = new ArrayList<Long>();
+        distances.put(start, 0);
+        queue.add(start);
+
+        for(int next = 0; next < queue.size(); next++){
+            long key = queue.get(next);
+            int distance = distances.get(key);
+            int blankRow = (int)(key >>> mBlankShift);
+
+            for(int row = blankRow - 1; row <= blankRow + 1; row += 2){
+                if(row < 0 || row >= numDivisions) continue;
+
+                //any tile in the neighboring row can move into the blank's row
+                for(int goalRow = 0; goalRow < numDivisions; goalRow++){
+                    if(getCount(key, row, goalRow) == 0) continue;
+
+                    long moved = moveTile(key, goalRow, row, blankRow);
+                    if(!distances.containsKey(moved)){
+                        distances.put(moved, distance + 1);
+                        queue.add(moved);
+                    }
+                }
+            }
+        }
+
+        mKeys = new long[queue.size()];
+        for(int i = 0; i < mKeys.length; i++){
+            mKeys[i] = queue.get(i);
+        }
+        Arrays.sort(mKeys);
+
+        mDistances = new byte[mKeys.length];
+        for(int i = 0; i < mKeys.length; i++){
+            mDistances[i] = (byte)(int)distances.get(mKeys[i]);
+        }
+
+        mNeighbours = new int[mKeys.length * numDivisions * 2];
+        Arrays.fill(mNeighbours, NO_INDEX);
+        for(int index = 0; index < mKeys.length; index++){
+            long key = mKeys[index];
+            int blankLine = (int)(key >>> mBlankShift);
+
+            for(int goalLine = 0; goalLine < numDivisions; goalLine++){
+                for(int fromLine = blankLine - 1; fromLine <= blankLine + 1; fromLine += 2){
+                    if(fromLine < 0 || fromLine >= numDivisions) continue;
+                    if(getCount(key, fromLine, goalLine) == 0) continue;
+
+                    mNeighbours[getNeighbourSlot(index, goalLine, fromLine > blankLine)] =
+                            getIndex(moveTile(key, goalLine, fromLine, blankLine));
+                }
+            }
+        }
+    }
+
+    /**@return the number of distinct row counts there are for this board size*/
+    public int size(){
+        return mKeys.length;
+    }
+
+    /**@return the walking distance for the key, or 0 for a key that can't happen*/
+    public int getDistance(long key){
+        return getDistanceAt(getIndex(key));
+    }
+
+    /**@return the key's index, or NO_INDEX for a key that can't happen*/
+    public int getIndex(long key){
+        int index = Arrays.binarySearch(mKeys, key);
+        return (index < 0) ? NO_INDEX : index;
+    }
+
+    /**@return the walking distance for the index, or 0 for NO_INDEX*/
+    public int getDistanceAt(int index){
+        return (index == NO_INDEX) ? 0 : mDistances[index];
+    }
+
+    /**@param index the index before the move
+     * @param goalLine the line the moving tile belongs in
+     * @param fromAfter true if the tile moves from the line after the blank's,
+     *      false if from the line before it
+     * @return the index after a tile belonging in goalLine moves into the blank's line*/
+    public int getNeighbour(int index, int goalLine, boolean fromAfter){
+        return mNeighbours[getNeighbourSlot(index, goalLine, fromAfter)];
+    }
+
+    private int getNeighbourSlot(int index, int goalLine, boolean fromAfter){
+        return ((index * numDivisions + goalLine) << 1) | (fromAfter ? 1 : 0);
+    }
+
+    /**@param rows true to count tiles by row, false to count them by column
+     * @return the key for the gamestate's rows or columns*/
+    public long getKey(GameState gameState, boolean rows){
+        int blankCell = gameState.getBlankCell();
+        long key = (long)(rows ? blankCell / numDivisions : blankCell % numDivisions) << mBlankShift;
+
+        for(int tile = 0; tile < gameState.getNumTiles() - 1; tile++){
+            int cell = gameState.getCellOf(tile);
+            if(rows){
+                key += 1L << getShift(cell / numDivisions, tile / numDivisions);
+            }
+            else{
+                key += 1L << getShift(cell % numDivisions, tile % numDivisions);
+            }
+        }
+        return key;
+    }
+
+    /**@return the key after a tile belonging in goalLine moves from fromLine into
+     * toLine, where the blank is, leaving the blank in fromLine*/
+    public long moveTile(long key, int goalLine, int fromLine, int toLine){
+        key -= 1L << getShift(fromLine, goalLine);
+        key += 1L << getShift(toLine, goalLine);
+        key &= ~(-1L << mBlankShift);
+        return key | ((long)fromLine << mBlankShift);
+    }
+
+    private int getCount(long key, int line, int goalLine){
+        return (int)((key >>> getShift(line, goalLine)) & ((1 << BITS_PER_COUNT) - 1));
+    }
+
+    private int getShift(int line, int goalLine){
+        return (line * numDivisions + goalLine) * BITS_PER_COUNT;
+    }
+}
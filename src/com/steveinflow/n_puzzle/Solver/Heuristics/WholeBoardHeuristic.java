@@ -0,0 +1,44 @@
+package com.steveinflow.n_puzzle.Solver.Heuristics;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Node;
+
+/**
+ * A heuristic whose goal is the solved board: every tile in the cell matching its
+ * index, and the blank tile in the bottom right corner. Subclasses only differ in
+ * how they estimate the moves left.
+ */
+public abstract class WholeBoardHeuristic extends Heuristic {
+
+    /**Solved when every tile is in the cell matching its index*/
+    @Override
+    public boolean checkIfSolved(GameState gameState){
+        for(int tile = 0; tile < gameState.getNumTiles() - 1; tile++){
+            if(gameState.getCellOf(tile) != tile) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean checkIfSolved(Node futureState){
+        return checkIfSolved(futureState.getEndState());
+    }
+
+    /**The solved board is the only goal*/
+    @Override
+    public GameState getGoalState(GameState gameState){
+        return new GameState(gameState.getNumDivisions());
+    }
+
+    /**@return the sum of Manhattan distances of every tile from its correct place*/
+    public static int getSumOfManhattanDistances(GameState gameState){
+        int total = 0;
+        int numDivisions = gameState.getNumDivisions();
+
+        //a tile's index is the number of the cell it belongs in
+        for(int tile = 0; tile < gameState.getNumTiles() - 1; tile++){
+            total += getCellDistance(gameState.getCellOf(tile), tile, numDivisions);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,200 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+
+/**
+ * Iterative deepening A*. Rather than keeping every state it has seen, the search
+ * goes depth first from the begin state and cuts off any path whose moves made
+ * plus estimate go over a bound. If nothing within the bound solves the goal, the
+ * bound is raised to the lowest total that went over it and the search starts again.
+ *
+ * Moves are made on a single GameState and undone in place, and the only other
+ * thing kept is the path of moves to the current state. Memory grows with the
+ * length of the solution rather than the number of states looked at, so this can
+ * search goals that would fill up the Solver's open list and visited states. In
+ * exchange, states are looked at again in every round. The heuristic's carry (see
+ * Heuristic.getCarry()) is kept beside each estimate on the way down.
+ */
+public class IDAStarSolver implements GoalSolver {
+    public static final String TAG = "IDAStarSolver";
+
+    /**Give up once the bound goes past this many moves*/
+    public static int MAX_BOUND = 200;
+
+    /**Check for cancellation and report progress every this many states*/
+    private static final int UPDATE_INTERVAL = 1024;
+
+    /**search() returns this when the current state solves the goal*/
+    private static final int FOUND = -1;
+    /**search() returns this when no path went over the bound*/
+    private static final int NO_BOUND = Integer.MAX_VALUE;
+
+    private SearchMonitor mParent;
+    private Heuristic mHeuristic;
+    private GameState mBeginState;
+    private long mFrozenMask;
+    private long mNodesChecked = 0;
+    private final SearchMetrics mMetrics;
+
+    /**The one board the search moves tiles on*/
+    private GameState mState;
+    private MoveTable mMoveTable;
+    /**The moves from the begin state to mState*/
+    private GameState.Direction[] mPath;
+    private int mSolutionLength;
+
+    private Solver.Status mStatus = Solver.Status.IDLE;
+
+    /**
+     * @param parentThread what runs this solver: checked for cancellation and given progress
+     * @param goal the heuristic that estimates the moves left,
+     * 		and will check gamestates to see if they solve the goal
+     * @param beginState the origin state to solve from
+     * @param frozenTiles the cells whose tiles should not be involved
+     * 	in any moves while solving this goal.
+     */
+    public IDAStarSolver(SearchMonitor parentThread, Heuristic goal, GameState beginState,
+            FrozenCells frozenTiles){
+        mParent = parentThread;
+        mHeuristic = goal;
+        mBeginState = beginState;
+        mFrozenMask = (frozenTiles == null) ? 0L : frozenTiles.getMask();
+        mMetrics = new SearchMetrics(goal, Solver.Algorithm.IDA_STAR);
+
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, "Starting IDA* solver for goal: " + mHeuristic.getDescription());
+            CoreLog.d(TAG, "csv: " + beginState.toCSV());
+        }
+    }
+
+    @Override
+    public Solver.Status getStatus(){
+        return mStatus;
+    }
+
+    /**IDA* keeps no open list or visited states, only the path it's on*/
+    @Override
+    public SearchMetrics getMetrics(){
+        return mMetrics;
+    }
+
+    /**Run rounds of depth first search with a growing bound until a solution is found.
+     * @return a node containing the solution state, and the MoveQueue to get there.
+     */
+    @Override
+    public Node solveGoal(){
+        mStatus = Solver.Status.SOLVING;
+
+        mState = new GameState(mBeginState);
+        mMoveTable = mState.getMoveTable();
+        mPath = new GameState.Direction[MAX_BOUND];
+
+        int estimate = mHeuristic.estimate(mState);
+        long carry = mHeuristic.getCarry(mState);
+        mMetrics.heuristicEvaluated();
+        int bound = estimate;
+
+        while(mStatus == Solver.Status.SOLVING){
+            if(bound > MAX_BOUND){
+                CoreLog.d(TAG, "Solver giving up, the bound passed " + MAX_BOUND + " moves");
+                mStatus = Solver.Status.FAILED;
+                break;
+            }
+
+            if(CoreLog.isLoggable()){
+                CoreLog.d(TAG, String.format("Searching with bound %s. %s nodes checked so far.",
+                        bound, mNodesChecked));
+            }
+
+            int result = search(0, estimate, carry, bound, null);
+
+            if(result == FOUND){
+                CoreLog.d(TAG, "Solution found!");
+                mStatus = Solver.Status.SOLVED;
+            }
+            else if(result == NO_BOUND && mStatus == Solver.Status.SOLVING){
+                CoreLog.d(TAG, "Solver terminating before solution found, no successors left");
+                mStatus = Solver.Status.FAILED;
+            }
+            else{
+                bound = result;
+            }
+        }
+
+        if(mStatus != Solver.Status.SOLVED){
+            return null;
+        }
+
+        MoveQueue moves = new MoveQueue();
+        for(int i = 0; i < mSolutionLength; i++){
+            moves.add(mPath[i]);
+        }
+        return new Node(mBeginState, moves, mState);
+    }
+
+    /**Search depth first from mState, which is cost moves from the begin state.
+     * mState is left as it was found unless it leads to a solution.
+     *
+     * @param cost the number of moves made so far
+     * @param estimate the heuristic's estimate for mState
+     * @param carry the heuristic's carry for mState
+     * @param bound the highest total cost to look at this round
+     * @param lastMove the move that led to mState, which won't be undone straight away
+     * @return FOUND if a solution was reached, otherwise the lowest total cost that
+     *      went over the bound, or NO_BOUND if none did
+     */
+    private int search(int cost, int estimate, long carry, int bound, GameState.Direction lastMove){
+        int total = cost + estimate;
+        if(total > bound) return total;
+
+        if(mHeuristic.checkIfSolved(mState)){
+            mSolutionLength = cost;
+            return FOUND;
+        }
+
+        if(++mNodesChecked % UPDATE_INTERVAL == 0){
+            if(mParent.isCancelled()){
+                mStatus = Solver.Status.CANCELLED;
+                return NO_BOUND;
+            }
+            mParent.getUpdate(mNodesChecked);
+        }
+
+        //the bound can't be reached, so a path this long always goes over it
+        if(cost == mPath.length) return NO_BOUND;
+
+        mMetrics.nodeExpanded();
+        int blankCell = mState.getBlankCell();
+        int legalMoves = mMoveTable.getMoveFlags(blankCell, mFrozenMask);
+        GameState.Direction undo = (lastMove == null) ? null : MoveTable.getOpposite(lastMove);
+        int nextBound = NO_BOUND;
+
+        for(GameState.Direction nextMove : MoveTable.MOVE_ORDER){
+            if(!MoveTable.hasMove(legalMoves, nextMove) || nextMove == undo) continue;
+
+            //the tile that moves goes from its cell into the blank's
+            int fromCell = mState.slide(nextMove);
+            int movedTile = mState.getByCell(blankCell);
+            long nextCarry = mHeuristic.carryAfterMove(carry, movedTile, fromCell, blankCell);
+            int nextEstimate = mHeuristic.estimateAfterMove(estimate, nextCarry, mState,
+                    movedTile, fromCell, blankCell);
+            mMetrics.nodeGenerated();
+            mMetrics.heuristicEvaluated();
+
+            mPath[cost] = nextMove;
+            int result = search(cost + 1, nextEstimate, nextCarry, bound, nextMove);
+            if(result == FOUND) return FOUND;
+
+            mState.slide(MoveTable.getOpposite(nextMove));
+
+            if(mStatus != Solver.Status.SOLVING) return NO_BOUND;
+            if(result < nextBound) nextBound = result;
+        }
+
+        return nextBound;
+    }
+}
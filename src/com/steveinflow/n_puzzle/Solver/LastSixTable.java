@@ -0,0 +1,172 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.Arrays;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
+
+/**
+ * Optimal solutions for the last 6 tiles, the 2 x 3 block in the bottom right
+ * corner that SolutionStrategy leaves for the end.
+ *
+ * With every other tile frozen in place, the block is a tiny puzzle of its own
+ * with 360 solvable arrangements, and its moves are the same whatever the board
+ * size. A breadth first search back from the solved block, run once and shared,
+ * records for every arrangement the first move of a shortest solution. Solving
+ * the block is then a matter of following those moves.
+ *
+ * Inside the block, cells are numbered row * 3 + col, and each arrangement is
+ * keyed by the block cell each tile belongs in, as base 6 digits in cell order.
+ */
+public class LastSixTable {
+    private static final int ROWS = 2;
+    private static final int COLS = 3;
+    private static final int CELLS = ROWS * COLS;
+    private static final int NUM_KEYS = 6 * 6 * 6 * 6 * 6 * 6;
+    /**The blank belongs in the block's last cell*/
+    private static final int BLANK = CELLS - 1;
+
+    /**Entries in mNextMove for arrangements that aren't a move away from anything*/
+    private static final byte UNREACHABLE = -1;
+    private static final byte SOLVED = -2;
+
+    private static LastSixTable sTable;
+
+    /**The Direction ordinal of the first move of a shortest solution, by key*/
+    private final byte[] mNextMove = new byte[NUM_KEYS];
+
+    /**@return the shared table, building it the first time*/
+    public static synchronized LastSixTable getTable(){
+        if(sTable == null){
+            sTable = new LastSixTable();
+        }
+        return sTable;
+    }
+
+    private LastSixTable(){
+        Arrays.fill(mNextMove, UNREACHABLE);
+        MoveTable moves = MoveTable.forDivisions(COLS);
+
+        int[] queue = new int[NUM_KEYS];
+        int[] block = new int[CELLS];
+        for(int cell = 0; cell < CELLS; cell++){
+            block[cell] = cell;
+        }
+
+        int start = getKey(block);
+        mNextMove[start] = SOLVED;
+        queue[0] = start;
+        int queueEnd = 1;
+
+        for(int next = 0; next < queueEnd; next++){
+            int key = queue[next];
+            getBlock(key, block);
+            int blankCell = findBlank(block);
+
+            for(GameState.Direction move : MoveTable.MOVE_ORDER){
+                int target = getTarget(moves, blankCell, move);
+                if(target == MoveTable.NO_MOVE) continue;
+
+                swap(block, blankCell, target);
+                int movedKey = getKey(block);
+                swap(block, blankCell, target);
+
+                //from there, the opposite move comes back here, one step closer to solved
+                if(mNextMove[movedKey] == UNREACHABLE){
+                    mNextMove[movedKey] = (byte)MoveTable.getOpposite(move).ordinal();
+                    queue[queueEnd++] = movedKey;
+                }
+            }
+        }
+    }
+
+    /**Find the shortest way to solve the last 6 tiles.
+     *
+     * @param gameState a board with every tile outside the bottom right 2 x 3 block
+     *      already in place
+     * @return the moves that solve the board, or null if the board isn't down to the
+     *      last 6 tiles, or they can't be solved
+     */
+    public MoveQueue getSolution(GameState gameState){
+        int numDivisions = gameState.getNumDivisions();
+        if(numDivisions < COLS) return null;
+
+        int firstRow = numDivisions - ROWS;
+        int firstCol = numDivisions - COLS;
+
+        //everything outside the block has to be solved already
+        for(int tile = 0; tile < gameState.getNumTiles() - 1; tile++){
+            if(!inBlock(tile, firstRow, firstCol, numDivisions) && gameState.getCellOf(tile) != tile){
+                return null;
+            }
+        }
+
+        int[] block = new int[CELLS];
+        for(int cell = 0; cell < CELLS; cell++){
+            int boardCell = (firstRow + cell / COLS) * numDivisions + firstCol + cell % COLS;
+            int tile = gameState.getByCell(boardCell);
+
+            if(tile == -1){
+                block[cell] = BLANK;
+            }
+            else if(inBlock(tile, firstRow, firstCol, numDivisions)){
+                block[cell] = (tile / numDivisions - firstRow) * COLS + tile % numDivisions - firstCol;
+            }
+            else{
+                return null;
+            }
+        }
+
+        int key = getKey(block);
+        if(mNextMove[key] == UNREACHABLE) return null;
+
+        MoveTable moves = MoveTable.forDivisions(COLS);
+        MoveQueue solution = new MoveQueue();
+        while(mNextMove[key] != SOLVED){
+            GameState.Direction move = GameState.Direction.values()[mNextMove[key]];
+            solution.add(move);
+
+            int blankCell = findBlank(block);
+            swap(block, blankCell, getTarget(moves, blankCell, move));
+            key = getKey(block);
+        }
+        return solution;
+    }
+
+    private static boolean inBlock(int tile, int firstRow, int firstCol, int numDivisions){
+        return tile / numDivisions >= firstRow && tile % numDivisions >= firstCol;
+    }
+
+    /**A 3 x 3 move table covers the 2 x 3 block, as long as nothing moves off the bottom*/
+    private static int getTarget(MoveTable moves, int blankCell, GameState.Direction move){
+        int target = moves.getTarget(blankCell, move);
+        return (target >= CELLS) ? MoveTable.NO_MOVE : target;
+    }
+
+    private static int getKey(int[] block){
+        int key = 0;
+        for(int cell = CELLS - 1; cell >= 0; cell--){
+            key = key * CELLS + block[cell];
+        }
+        return key;
+    }
+
+    private static void getBlock(int key, int[] block){
+        for(int cell = 0; cell < CELLS; cell++){
+            block[cell] = key % CELLS;
+            key /= CELLS;
+        }
+    }
+
+    private static int findBlank(int[] block){
+        int cell = 0;
+        while(block[cell] != BLANK) cell++;
+        return cell;
+    }
+
+    private static void swap(int[] block, int cell1, int cell2){
+        int temp = block[cell1];
+        block[cell1] = block[cell2];
+        block[cell2] = temp;
+    }
+}
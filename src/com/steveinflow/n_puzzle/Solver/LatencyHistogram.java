@@ -0,0 +1,102 @@
+package com.steveinflow.n_puzzle.Solver;
+
+/**
+ * How long goals took to solve, counted in buckets that double in width: the
+ * first holds times under a microsecond, and bucket i holds times from
+ * 2^(i-1) up to 2^i microseconds. Percentiles are read off as the top of the
+ * bucket they fall in, so they're at most twice the real value.
+ */
+public class LatencyHistogram {
+
+    /**The last bucket holds everything from about 18 minutes up*/
+    public static final int NUM_BUCKETS = 32;
+
+    private final long[] mCounts = new long[NUM_BUCKETS];
+    private long mCount = 0;
+    private long mTotalMicros = 0;
+    private long mMaxMicros = 0;
+
+    public LatencyHistogram(){
+    }
+
+    /**A copy of the other histogram's counts as they are now*/
+    public LatencyHistogram(LatencyHistogram other){
+        System.arraycopy(other.mCounts, 0, mCounts, 0, NUM_BUCKETS);
+        mCount = other.mCount;
+        mTotalMicros = other.mTotalMicros;
+        mMaxMicros = other.mMaxMicros;
+    }
+
+    public void record(long micros){
+        if(micros < 0) micros = 0;
+
+        //the number of bits in the time is the bucket it goes in
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        mCounts[Math.min(bucket, NUM_BUCKETS - 1)]++;
+
+        mCount++;
+        mTotalMicros += micros;
+        if(micros > mMaxMicros) mMaxMicros = micros;
+    }
+
+    public long getCount(){
+        return mCount;
+    }
+
+    public long getTotalMicros(){
+        return mTotalMicros;
+    }
+
+    public long getMaxMicros(){
+        return mMaxMicros;
+    }
+
+    /**@return the longest time that bucket holds, in microseconds*/
+    public static long getBucketLimit(int bucket){
+        return (1L << bucket) - 1;
+    }
+
+    /**@param percentile from 0 to 100
+     * @return the time that percentile of goals finished within, in microseconds,
+     *      or 0 if none have been recorded*/
+    public long getPercentile(double percentile){
+        if(mCount == 0) return 0;
+
+        long target = (long)Math.ceil(mCount * percentile / 100);
+        long seen = 0;
+        for(int bucket = 0; bucket < NUM_BUCKETS; bucket++){
+            seen += mCounts[bucket];
+            if(seen >= target && seen > 0){
+                return Math.min(getBucketLimit(bucket), mMaxMicros);
+            }
+        }
+        return mMaxMicros;
+    }
+
+    /**@return the histogram as a JSON object, with only the buckets that have counts*/
+    public String toJSON(){
+        StringBuilder builder = new StringBuilder();
+        appendJSON(builder);
+        return builder.toString();
+    }
+
+    void appendJSON(StringBuilder builder){
+        builder.append("{\"count\":").append(mCount)
+                .append(",\"totalMicros\":").append(mTotalMicros)
+                .append(",\"maxMicros\":").append(mMaxMicros)
+                .append(",\"p50Micros\":").append(getPercentile(50))
+                .append(",\"p90Micros\":").append(getPercentile(90))
+                .append(",\"p99Micros\":").append(getPercentile(99))
+                .append(",\"buckets\":[");
+
+        boolean first = true;
+        for(int bucket = 0; bucket < NUM_BUCKETS; bucket++){
+            if(mCounts[bucket] == 0) continue;
+            if(!first) builder.append(',');
+            first = false;
+            builder.append("{\"maxMicros\":").append(getBucketLimit(bucket))
+                    .append(",\"count\":").append(mCounts[bucket]).append('}');
+        }
+        builder.append("]}");
+    }
+}
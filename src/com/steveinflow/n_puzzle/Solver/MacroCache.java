@@ -0,0 +1,114 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+
+/**
+ * Solutions to small goals, kept to be reused.
+ *
+ * Getting the blank tile next to a tile, or moving a tile somewhere, only depends
+ * on where the blank tile and that tile are and which cells are frozen, not on the
+ * rest of the board. The same goals come up again and again from the same
+ * positions, so each solution is stored under the goal's macro key (see
+ * Heuristic.getMacroKey()) and the frozen cells, and handed back the next time
+ * instead of searching again.
+ *
+ * The cache is shared by every game in the process, and forgets the least
+ * recently used solution once it holds MAX_ENTRIES.
+ */
+public class MacroCache {
+    public static final String TAG = "MacroCache";
+
+    public static int MAX_ENTRIES = 2048;
+
+    private static MacroCache sCache;
+
+    private final LinkedHashMap<Key, MoveQueue> mSolutions;
+    private int mHits;
+    private int mMisses;
+
+    /**@return the shared cache*/
+    public static synchronized MacroCache getCache(){
+        if(sCache == null){
+            sCache = new MacroCache();
+        }
+        return sCache;
+    }
+
+    private MacroCache(){
+        mSolutions = new LinkedHashMap<Key, MoveQueue>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, MoveQueue> eldest){
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+
+    /**@return a copy of the stored solution to the goal from the given state,
+     * or null if there isn't one*/
+    public synchronized MoveQueue get(Heuristic goal, GameState gameState, long frozenMask){
+        long macroKey = goal.getMacroKey(gameState);
+        if(macroKey == Heuristic.NO_MACRO_KEY) return null;
+
+        MoveQueue solution = mSolutions.get(new Key(macroKey, frozenMask));
+        if(solution == null){
+            mMisses++;
+            return null;
+        }
+
+        mHits++;
+        if(mHits % 100 == 0 && CoreLog.isLoggable()){
+            CoreLog.d(TAG, String.format("%s hits, %s misses, %s solutions stored",
+                    mHits, mMisses, mSolutions.size()));
+        }
+
+        MoveQueue copy = new MoveQueue();
+        copy.addAll(solution);
+        return copy;
+    }
+
+    /**Store the solution to the goal from the given state, if the goal has a macro key*/
+    public synchronized void put(Heuristic goal, GameState beginState, long frozenMask,
+            MoveQueue solution){
+        long macroKey = goal.getMacroKey(beginState);
+        if(macroKey == Heuristic.NO_MACRO_KEY) return;
+
+        MoveQueue copy = new MoveQueue();
+        copy.addAll(solution);
+        mSolutions.put(new Key(macroKey, frozenMask), copy);
+    }
+
+    /**Forget every stored solution, so the next goals are searched for again*/
+    public synchronized void clear(){
+        mSolutions.clear();
+        mHits = 0;
+        mMisses = 0;
+    }
+
+    private static class Key {
+        private final long mMacroKey;
+        private final long mFrozenMask;
+
+        Key(long macroKey, long frozenMask){
+            mMacroKey = macroKey;
+            mFrozenMask = frozenMask;
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if(!(other instanceof Key)) return false;
+            Key key = (Key)other;
+            return mMacroKey == key.mMacroKey && mFrozenMask == key.mFrozenMask;
+        }
+
+        @Override
+        public int hashCode(){
+            long hash = mMacroKey * 31 + mFrozenMask;
+            return (int)(hash ^ (hash >>> 32));
+        }
+    }
+}
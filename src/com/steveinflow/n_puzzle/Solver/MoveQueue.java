@@ -6,9 +6,8 @@ import java.util.Iterator;
 import java.util.Queue;
 import java.util.Random;
 
-import android.graphics.Point;
-import android.util.Log;
-
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
 import com.steveinflow.n_puzzle.GameState.GameState;
 import com.steveinflow.n_puzzle.GameState.GameState.Direction;
 
@@ -65,28 +64,28 @@ public class MoveQueue implements Queue<GameState.Direction> {
      * @param beginState the gamestate that the game began with after the first shuffle
      * @return the gamestate after making the next available move
      */
-	public synchronized GameState addNextAvailableMove(GameState beginState, ArrayList<Point> frozenTiles, int tryCount){
+	public synchronized GameState addNextAvailableMove(GameState beginState, FrozenCells frozenTiles, int tryCount){
 		GameState endState = this.getStateAfterMoves(beginState);
 		
-		Log.d(TAG, "try " + tryCount + " for: \n" + endState.toString());
+		CoreLog.d(TAG, "try " + tryCount + " for: \n" + endState.toString());
 		
     	ArrayList<GameState.Direction> possibleMoves= endState.getLegalMoves(frozenTiles);
     	
     	int size = possibleMoves.size();
     	if(size == 0){
-    		Log.d(TAG, "Adding next available move but somehow there are no legal moves left");
-    		Log.d(TAG, "BeginState" + beginState.toCSV());
-    		Log.d(TAG, "EndState:" + endState.toCSV());
+    		CoreLog.d(TAG, "Adding next available move but somehow there are no legal moves left");
+    		CoreLog.d(TAG, "BeginState" + beginState.toCSV());
+    		CoreLog.d(TAG, "EndState:" + endState.toCSV());
     		return null;
     	}
     	
     	if(tryCount >= size){
-    		Log.d(TAG, "Tried all moves");
+    		CoreLog.d(TAG, "Tried all moves");
     		return null;
     	}
     	else{
     		Direction move =  possibleMoves.get(tryCount);
-    		Log.d(TAG, "Choosing move: " + move);
+    		CoreLog.d(TAG, "Choosing move: " + move);
     		this.add(move);
     		return endState.makeMove(move);
     	}
@@ -100,22 +99,22 @@ public class MoveQueue implements Queue<GameState.Direction> {
      * @param frozenTiles any tiles that have already been solved and should not be moved
      * @return the gamestate that results from making a random move
      */
-    public synchronized GameState addRandomMove(GameState beginState, ArrayList<Point> frozenTiles){
+    public synchronized GameState addRandomMove(GameState beginState, FrozenCells frozenTiles){
     	
     	GameState endState = this.getStateAfterMoves(beginState);
     	ArrayList<GameState.Direction> possibleMoves= endState.getLegalMoves(frozenTiles);
     	
     	int size = possibleMoves.size();
     	if(size == 0){
-    		Log.d(TAG, "Adding random move but somehow there are no legal moves left");
-    		Log.d(TAG, "BeginState" + beginState.toCSV());
-    		Log.d(TAG, "EndState:" + endState.toCSV());
+    		CoreLog.d(TAG, "Adding random move but somehow there are no legal moves left");
+    		CoreLog.d(TAG, "BeginState" + beginState.toCSV());
+    		CoreLog.d(TAG, "EndState:" + endState.toCSV());
     		return null;
     	}
     	
 		Direction move = possibleMoves.get(new Random().nextInt(size));
 		
-    	Log.d(TAG, "Adding random move: " + move);
+    	CoreLog.d(TAG, "Adding random move: " + move);
     	this.add(move);
     	
     	return endState.makeMove(move);
@@ -2,45 +2,73 @@ package com.steveinflow.n_puzzle.Solver;
 
 import com.steveinflow.n_puzzle.GameState.GameState;
 
-/**A node in the search algorithm. 
+/**A node in the search algorithm.
  * Contains an origin state, a movequeue, and a resultant state.
- * 
+ *
+ * The search creates a node for every state it looks at, so a successor node
+ * only keeps a reference to its parent, the move that led to it, and the number
+ * of moves from the origin. The MoveQueue is rebuilt from the chain of parents
+ * the first time it is asked for, which in practice is only for the solution.
+ *
  * Created by stepheno on 7/3/13.
  */
 public class Node {
+    private final Node mParent;
+    private final GameState.Direction mLastMove;
+    /**Number of moves from the beginning state*/
+    private final int mCost;
+    /**The heuristic's estimate of the moves left, evaluated once when the node is made*/
+    private int mEstimate;
+    private final GameState endState;
+
+    /**Only set on the root of a chain of nodes*/
     private GameState beginState;
+    /**Built lazily from the parent chain*/
     private MoveQueue moveQueue;
-    private GameState endState;
 
     public Node(GameState beginState, MoveQueue moveQueue, GameState endState){
+        this.mParent = null;
+        this.mLastMove = null;
+        this.mCost = moveQueue.size();
         this.beginState = beginState;
         this.moveQueue = moveQueue;
         this.endState = endState;
     }
-    
+
     /**construct an origin node*/
     public Node(GameState beginState){
-    	this.beginState = beginState;
-    	this.moveQueue = new MoveQueue();
-    	this.endState = beginState;
+        this(beginState, new MoveQueue(), beginState);
     }
-    
+
     /**construct a successor node*/
     public Node(Node previous, GameState.Direction nextMove){
-    	MoveQueue nextMoves = new MoveQueue();
-        nextMoves.addAll(previous.getMoveQueue());
-        nextMoves.add(nextMove);
-        
-        this.beginState = previous.getBeginningState();
-        this.moveQueue = nextMoves;
-        this.endState = previous.endState.makeMove(nextMove);
+        this(previous, nextMove, previous.endState.makeMove(nextMove));
+    }
+
+    /**construct a successor node when the resulting state has already been made
+     *
+     * @param previous the node being expanded
+     * @param nextMove the move made from the previous node's end state
+     * @param endState the state that results from making nextMove
+     */
+    public Node(Node previous, GameState.Direction nextMove, GameState endState){
+        this.mParent = previous;
+        this.mLastMove = nextMove;
+        this.mCost = previous.mCost + 1;
+        this.endState = endState;
     }
 
     public GameState getBeginningState(){
-        return beginState;
+        return getRoot().beginState;
     }
 
+    /**Return the moves from the beginning state to the end state.
+     * For successor nodes this walks back through the parents once and keeps the result.
+     */
     public MoveQueue getMoveQueue(){
+        if(moveQueue == null){
+            moveQueue = buildMoveQueue();
+        }
         return moveQueue;
     }
 
@@ -48,4 +76,58 @@ public class Node {
         return endState;
     }
 
+    public Node getParent(){
+        return mParent;
+    }
+
+    /**@return the move that led from the parent to this node, or null for a root node*/
+    public GameState.Direction getLastMove(){
+        return mLastMove;
+    }
+
+    /**@return the number of moves from the beginning state to the end state*/
+    public int getCost(){
+        return mCost;
+    }
+
+    /**@return the heuristic estimate stored on this node*/
+    public int getEstimate(){
+        return mEstimate;
+    }
+
+    public void setEstimate(int estimate){
+        mEstimate = estimate;
+    }
+
+    /**@return the cost so far plus the estimated cost to go. The search orders nodes by this.*/
+    public int getTotalCost(){
+        return mCost + mEstimate;
+    }
+
+    private Node getRoot(){
+        Node root = this;
+        while(root.mParent != null){
+            root = root.mParent;
+        }
+        return root;
+    }
+
+    private MoveQueue buildMoveQueue(){
+        Node root = getRoot();
+
+        //walk back from this node, filling in the moves from the end
+        GameState.Direction[] path = new GameState.Direction[mCost - root.mCost];
+        int index = path.length;
+        for(Node node = this; node != root; node = node.mParent){
+            path[--index] = node.mLastMove;
+        }
+
+        MoveQueue result = new MoveQueue();
+        result.addAll(root.getMoveQueue());
+        for(GameState.Direction move : path){
+            result.add(move);
+        }
+        return result;
+    }
+
 }
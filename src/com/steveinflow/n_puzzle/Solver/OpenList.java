@@ -0,0 +1,12 @@
+package com.steveinflow.n_puzzle.Solver;
+
+/**The nodes the solver has generated but not yet expanded, handed back best first.
+ */
+public interface OpenList {
+    public void add(Node node);
+
+    /**@return the best node, removing it from the list, or null if the list is empty*/
+    public Node poll();
+
+    public int size();
+}
@@ -0,0 +1,114 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.ArrayList;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.PatternDatabaseHeuristic;
+import com.steveinflow.n_puzzle.Solver.Heuristics.WalkingDistanceHeuristic;
+
+/**
+ * Rather than solving one tile at a time, solve the whole board as a single goal
+ * with pattern databases. The solution is as short as it can be, but the search
+ * is only practical on small boards.
+ */
+public class OptimalSolutionStrategy extends SolutionStrategy {
+    private static final String TAG = "OptimalSolutionStrategy";
+
+    /**Hard boards can take a long time to solve optimally. Stop after this many
+     * milliseconds. The anytime search hands back the shortest solution it has by
+     * then. IDA* gives up, and the caller can solve the board tile by tile instead.*/
+    public static final long MAX_TIME_ALLOWED = 5000;
+
+    private final int numDivisions;
+    /**Nothing is frozen: every tile may move*/
+    private final FrozenCells mNoFrozenTiles;
+    private boolean mSolved = false;
+
+    /**Search with AnytimeSolver, which always has a solution when time runs out,
+     * rather than IDA*, which only has one if it finishes*/
+    public static boolean ANYTIME = true;
+
+    /**Race a walking distance search against the pattern databases, which is
+     * faster on some boards. Only worth it with a core for each.*/
+    public static boolean RACE_HEURISTICS = Runtime.getRuntime().availableProcessors() > 1;
+
+    /**Race a bidirectional search with the pattern databases as well, which
+     * expands fewer nodes on boards far from solved but has no solution to hand
+     * back if time runs out. Only worth it with a core for each search.*/
+    public static boolean RACE_BIDIRECTIONAL = Runtime.getRuntime().availableProcessors() > 2;
+
+    /**Past 4 x 4 an optimal search is hopeless, even with pattern databases*/
+    public static final int MAX_DIVISIONS = 4;
+
+    /**@return true if boards of this size can be solved optimally*/
+    public static boolean supports(int numDivisions){
+        return numDivisions <= MAX_DIVISIONS && PatternDatabaseHeuristic.supports(numDivisions);
+    }
+
+    public OptimalSolutionStrategy(GameState gameState, int numDivisions){
+        super(gameState, numDivisions);
+        this.numDivisions = numDivisions;
+        mNoFrozenTiles = new FrozenCells(numDivisions);
+    }
+
+    /**The only goal is the solved board*/
+    @Override
+    public Heuristic getNextGoal(GameState gameState){
+        if(mSolved){
+            CoreLog.d(TAG, "Solved everything, solver stopping");
+            return null;
+        }
+        return new PatternDatabaseHeuristic(numDivisions);
+    }
+
+    @Override
+    public void processSolvedGoal(GameState gameState){
+        mSolved = true;
+    }
+
+    @Override
+    public Solver.Algorithm getAlgorithm(){
+        return ANYTIME ? Solver.Algorithm.ANYTIME_A_STAR : Solver.Algorithm.IDA_STAR;
+    }
+
+    @Override
+    public PortfolioEntry[] getPortfolio(Heuristic goal){
+        ArrayList<PortfolioEntry> entries = new ArrayList<PortfolioEntry>();
+        entries.add(new PortfolioEntry(goal, getAlgorithm()));
+
+        if(RACE_HEURISTICS && WalkingDistanceHeuristic.supports(numDivisions)){
+            entries.add(new PortfolioEntry(new WalkingDistanceHeuristic(numDivisions),
+                    Solver.Algorithm.IDA_STAR));
+        }
+        if(RACE_BIDIRECTIONAL){
+            entries.add(new PortfolioEntry(new PatternDatabaseHeuristic(numDivisions),
+                    Solver.Algorithm.BIDIRECTIONAL));
+        }
+
+        if(entries.size() == 1) return null;
+        return entries.toArray(new PortfolioEntry[entries.size()]);
+    }
+
+    @Override
+    public long getTimeLimit(){
+        return MAX_TIME_ALLOWED;
+    }
+
+    @Override
+    public boolean readyForLineEndManeuver(){
+        return false;
+    }
+
+    @Override
+    public FrozenCells getFrozenTiles(){
+        return mNoFrozenTiles;
+    }
+
+    @Override
+    public boolean isSuccessfullyCompleted(){
+        return mSolved;
+    }
+}
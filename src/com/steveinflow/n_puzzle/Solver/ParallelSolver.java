@@ -0,0 +1,398 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+
+/**
+ * A* spread over several worker threads (hash distributed A*). Every state has
+ * one owner, picked from its hash. The owner keeps the best number of moves it
+ * has seen the state reached in, in a VisitedStateSet that keeps costs and may
+ * use an even share of Solver.MAX_VISITED_STATE_BYTES, and the only open list the
+ * state can go in. A
+ * worker expands nodes from its own open list and sends each successor to its
+ * owner's inbox, a lock-free queue, so the workers never wait on each other.
+ *
+ * Since the workers don't expand nodes in one global order, the first solution
+ * found isn't necessarily the shortest. It becomes the one to beat: from then on
+ * workers drop any node whose total cost is no better, and the search ends when
+ * no work is left anywhere. A count of the nodes sitting in inboxes and open
+ * lists tells when that is. Successors are counted before their parent is
+ * discounted, so it only reaches zero once every worker has run out.
+ *
+ * The calling thread doesn't search. It checks for cancellation and reports
+ * progress while the workers run, so the SearchMonitor is only ever called from
+ * the thread it expects. The worker that takes the count to zero, or ends the
+ * search some other way, wakes it rather than leaving it to notice. Whichever
+ * thread ends the search first decides how it ended (see endSearch()), so a
+ * worker running out of room can't turn a cancelled search into a failed one. The
+ * heuristic is shared by every worker, and must not change while estimating.
+ */
+public class ParallelSolver implements GoalSolver {
+    public static final String TAG = "ParallelSolver";
+
+    /**How many workers to search with. One per core by default.*/
+    public static int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**How long the task's thread waits between checks on the workers*/
+    private static final long UPDATE_INTERVAL_NANOS = 20000000;
+
+    /**How long a worker with nothing to do waits before checking its inbox again*/
+    private static final long IDLE_WAIT_NANOS = 50000;
+
+    private static final int NO_SOLUTION = Integer.MAX_VALUE;
+
+    private SearchMonitor mParent;
+    private Heuristic mHeuristic;
+    private GameState mBeginState;
+    private long mFrozenMask;
+
+    private final AtomicReference<Solver.Status> mStatus =
+            new AtomicReference<Solver.Status>(Solver.Status.IDLE);
+
+    private Worker[] mWorkers;
+    /**The workers' counts are added in when they're done*/
+    private final SearchMetrics mMetrics;
+    /**Nodes waiting in inboxes or open lists, across all workers*/
+    private final AtomicLong mPendingNodes = new AtomicLong();
+    /**The thread waiting on the workers, woken when they're done*/
+    private Thread mCoordinator;
+
+    /**The shortest solution found so far*/
+    private Node mBestSolution;
+    private volatile int mBestCost = NO_SOLUTION;
+
+    /**
+     * @param parentThread what runs this solver: checked for cancellation and given progress
+     * @param goal the heuristic that will compare gamestates to determine what is best,
+     * 		and will check gamestates to see if they solve the goal
+     * @param beginState the origin state to solve from
+     * @param frozenTiles the cells whose tiles should not be involved
+     * 	in any moves while solving this goal.
+     */
+    public ParallelSolver(SearchMonitor parentThread, Heuristic goal, GameState beginState,
+            FrozenCells frozenTiles){
+        mParent = parentThread;
+        mHeuristic = goal;
+        mBeginState = beginState;
+        mFrozenMask = (frozenTiles == null) ? 0L : frozenTiles.getMask();
+        mMetrics = new SearchMetrics(goal, Solver.Algorithm.PARALLEL_A_STAR);
+
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, "Starting parallel solver for goal: " + mHeuristic.getDescription());
+            CoreLog.d(TAG, "csv: " + beginState.toCSV());
+        }
+    }
+
+    @Override
+    public Solver.Status getStatus(){
+        return mStatus.get();
+    }
+
+    @Override
+    public SearchMetrics getMetrics(){
+        return mMetrics;
+    }
+
+    /**Start the workers on the origin node and wait for them to run out of work.
+     * @return a node containing the solution state, and the MoveQueue to get there.
+     */
+    @Override
+    public Node solveGoal(){
+        mStatus.set(Solver.Status.SOLVING);
+
+        Node originNode = new Node(mBeginState);
+        originNode.setEstimate(mHeuristic.estimate(mBeginState));
+        mMetrics.heuristicEvaluated();
+
+        //If the goal has already been achieved, don't do anything
+        if(mHeuristic.checkIfSolved(originNode)){
+            mStatus.set(Solver.Status.SOLVED);
+            return originNode;
+        }
+
+        int numThreads = Math.max(1, NUM_THREADS);
+        mWorkers = new Worker[numThreads];
+        for(int i = 0; i < numThreads; i++){
+            mWorkers[i] = new Worker(Solver.MAX_VISITED_STATE_BYTES / numThreads);
+        }
+
+        mCoordinator = Thread.currentThread();
+        mPendingNodes.set(1);
+        mWorkers[getOwner(mBeginState)].mInbox.add(originNode);
+
+        Thread[] threads = new Thread[numThreads];
+        for(int i = 0; i < numThreads; i++){
+            threads[i] = new Thread(mWorkers[i], TAG + " worker " + i);
+            threads[i].start();
+        }
+
+        while(mStatus.get() == Solver.Status.SOLVING){
+            if(mParent.isCancelled()){
+                endSearch(Solver.Status.CANCELLED);
+                break;
+            }
+
+            mParent.getUpdate(getNodesChecked());
+
+            if(mPendingNodes.get() == 0){
+                //no work left means the best solution found is the shortest
+                endSearch(Solver.Status.SOLVED);
+                break;
+            }
+
+            //a worker wakes this thread early once the search is over
+            LockSupport.parkNanos(this, UPDATE_INTERVAL_NANOS);
+            if(Thread.interrupted()){
+                //cancel(true) interrupts the task's thread
+                endSearch(Solver.Status.CANCELLED);
+            }
+        }
+
+        //workers stop once the status leaves SOLVING
+        for(Thread thread : threads){
+            try{
+                thread.join();
+            }
+            catch(InterruptedException e){
+                break;
+            }
+        }
+
+        //the states every worker has seen. Workers only forget them on running out
+        //of memory, which ends the search.
+        long statesSeen = 0;
+        for(Worker worker : mWorkers){
+            mMetrics.add(worker.mMetrics);
+            if(worker.mVisitedStates != null) statesSeen += worker.mVisitedStates.size();
+        }
+        mMetrics.visitedStates(statesSeen);
+        CoreLog.d(TAG, String.format("%s workers checked %s nodes, %s states seen",
+                numThreads, getNodesChecked(), statesSeen));
+        mWorkers = null;
+
+        //a worker running out of room still leaves a solution, just maybe not the shortest one
+        if(mStatus.get() == Solver.Status.FAILED && mBestSolution != null){
+            mStatus.set(Solver.Status.SOLVED);
+        }
+        else if(mStatus.get() == Solver.Status.SOLVED && mBestSolution == null){
+            mStatus.set(Solver.Status.FAILED);
+        }
+
+        if(mStatus.get() != Solver.Status.SOLVED){
+            if(mStatus.get() == Solver.Status.FAILED){
+                CoreLog.d(TAG, "Solver terminating before solution found, no successors left");
+            }
+            return null;
+        }
+
+        CoreLog.d(TAG, "Solution found!");
+        return mBestSolution;
+    }
+
+    private long getNodesChecked(){
+        long total = 0;
+        Worker[] workers = mWorkers;
+        if(workers == null) return total;
+        for(Worker worker : workers){
+            total += worker.mNodesChecked;
+        }
+        return total;
+    }
+
+    /**@return the index of the worker that owns the state*/
+    private int getOwner(GameState state){
+        //spread the hash's bits so that the low ones vary
+        int h = state.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return (h & 0x7FFFFFFF) % mWorkers.length;
+    }
+
+    /**End the search with the given status, unless something else ended it first.
+     * Only the first status sticks, so a cancelled search stays cancelled.
+     * @return true if this ended the search*/
+    private boolean endSearch(Solver.Status status){
+        return mStatus.compareAndSet(Solver.Status.SOLVING, status);
+    }
+
+    /**Wake the task's thread to check on the workers, once they've run out of
+     * work or one of them has ended the search*/
+    private void wakeCoordinator(){
+        LockSupport.unpark(mCoordinator);
+    }
+
+    /**Keep the solution if it's shorter than the best one so far*/
+    private synchronized void offerSolution(Node node){
+        if(node.getCost() < mBestCost){
+            mBestSolution = node;
+            mBestCost = node.getCost();
+        }
+    }
+
+    /**A worker thread, with the states it owns and the open list they go in*/
+    private class Worker implements Runnable {
+        private final ConcurrentLinkedQueue<Node> mInbox = new ConcurrentLinkedQueue<Node>();
+        private final OpenList mOpenList;
+        /**The fewest moves each owned state has been reached in. Dropped on running out of memory.*/
+        private VisitedStateSet mVisitedStates;
+
+        /**Successors of the node being expanded, and the workers that own them*/
+        private final Node[] mOutbox = new Node[4];
+        private final int[] mOutboxOwners = new int[4];
+        private int mOutboxSize = 0;
+
+        private volatile long mNodesChecked = 0;
+        /**Only this worker's thread counts in these, until it's done*/
+        private final SearchMetrics mMetrics =
+                new SearchMetrics(mHeuristic, Solver.Algorithm.PARALLEL_A_STAR);
+
+        /**@param maxBytes the most memory this worker's visited states may use*/
+        Worker(long maxBytes){
+            mVisitedStates = new VisitedStateSet(mBeginState, maxBytes, true);
+            if(mHeuristic.hasIntegerCosts()){
+                mOpenList = new BucketOpenList();
+            }
+            else{
+                mOpenList = new PriorityOpenList(mHeuristic);
+            }
+        }
+
+        @Override
+        public void run(){
+            try{
+                search();
+            }
+            catch(OutOfMemoryError e){
+                mVisitedStates = null;
+                if(endSearch(Solver.Status.FAILED)){
+                    CoreLog.d(TAG, "Ran out of internal memory while solving");
+                }
+                wakeCoordinator();
+            }
+        }
+
+        private void search(){
+            //nodes this worker has finished with but not yet taken off mPendingNodes
+            long finished = 0;
+
+            while(mStatus.get() == Solver.Status.SOLVING){
+                finished += readInbox();
+
+                Node node = mOpenList.poll();
+                if(node == null){
+                    if(finished != 0){
+                        if(mPendingNodes.addAndGet(-finished) == 0) wakeCoordinator();
+                        finished = 0;
+                    }
+                    if(mPendingNodes.get() == 0) break;
+                    //let busy workers have the core while waiting for mail
+                    LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                    continue;
+                }
+                mNodesChecked++;
+
+                //a shorter path to this state may have come in since it was added
+                if(node.getCost() >= mBestCost
+                        || mVisitedStates.getCost(node.getEndState()) < node.getCost()){
+                    finished++;
+                    continue;
+                }
+
+                if(mHeuristic.checkIfSolved(node)){
+                    offerSolution(node);
+                    finished++;
+                    continue;
+                }
+
+                if(node.getTotalCost() >= mBestCost){
+                    finished++;
+                    continue;
+                }
+
+                int sent = expand(node);
+                //count the successors before letting go of their parent
+                if(mPendingNodes.addAndGet(sent - 1 - finished) == 0) wakeCoordinator();
+                finished = 0;
+                sendAll();
+            }
+        }
+
+        /**Move nodes from the inbox to the open list, dropping any reached in fewer moves before.
+         * @return how many nodes were dropped*/
+        private int readInbox(){
+            int dropped = 0;
+            Node node;
+            while((node = mInbox.poll()) != null){
+                GameState state = node.getEndState();
+                int bestCost = mVisitedStates.getCost(state);
+                boolean seen = bestCost != VisitedStateSet.NOT_FOUND;
+                if(bestCost <= node.getCost() || node.getTotalCost() >= mBestCost){
+                    if(seen) mMetrics.duplicate();
+                    dropped++;
+                    continue;
+                }
+
+                if(!seen && mVisitedStates.isFull()){
+                    if(endSearch(Solver.Status.FAILED)){
+                        CoreLog.d(TAG, "Solver giving up, a worker's visited states are full");
+                    }
+                    wakeCoordinator();
+                    dropped++;
+                    continue;
+                }
+                mVisitedStates.add(state, node.getCost());
+                mOpenList.add(node);
+            }
+            mMetrics.openListSize(mOpenList.size());
+            return dropped;
+        }
+
+        /**Make the node's successors and hold them until sendAll()
+         * @return the number of successors*/
+        private int expand(Node node){
+            final GameState previousState = node.getEndState();
+            final int previousBlankCell = previousState.getBlankCell();
+            int legalMoves = previousState.getLegalMoveFlags(mFrozenMask);
+
+            GameState.Direction lastMove = node.getLastMove();
+            mOutboxSize = 0;
+            mMetrics.nodeExpanded();
+
+            for(GameState.Direction nextMove : MoveTable.MOVE_ORDER){
+                if(!MoveTable.hasMove(legalMoves, nextMove)) continue;
+                //undoing the last move only leads back to the parent
+                if(lastMove != null && nextMove == MoveTable.getOpposite(lastMove)) continue;
+
+                GameState resultantState = previousState.makeMove(nextMove);
+                Node nextNode = new Node(node, nextMove, resultantState);
+                mMetrics.nodeGenerated();
+
+                //the tile that moved is now where the blank tile was
+                int movedTile = resultantState.getByCell(previousBlankCell);
+                nextNode.setEstimate(mHeuristic.estimateAfterMove(node.getEstimate(),
+                        resultantState, movedTile, resultantState.getBlankCell(), previousBlankCell));
+                mMetrics.heuristicEvaluated();
+
+                mOutbox[mOutboxSize] = nextNode;
+                mOutboxOwners[mOutboxSize] = getOwner(resultantState);
+                mOutboxSize++;
+            }
+            return mOutboxSize;
+        }
+
+        private void sendAll(){
+            for(int i = 0; i < mOutboxSize; i++){
+                mWorkers[mOutboxOwners[i]].mInbox.add(mOutbox[i]);
+                mOutbox[i] = null;
+            }
+            mOutboxSize = 0;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+
+/**One solver configuration for PortfolioSolver to race on a goal*/
+public class PortfolioEntry {
+    public final Heuristic heuristic;
+    public final Solver.Algorithm algorithm;
+
+    public PortfolioEntry(Heuristic heuristic, Solver.Algorithm algorithm){
+        this.heuristic = heuristic;
+        this.algorithm = algorithm;
+    }
+}
@@ -0,0 +1,216 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import android.annotation.TargetApi;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Handler;
+
+import com.steveinflow.n_puzzle.GamePlayActivity;
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
+import com.steveinflow.n_puzzle.GameState.GameState;
+
+/**
+ * Races several solver configurations on the same goal at once, each in its own
+ * SolveGameTask. Which heuristic and search is fastest depends on the board, so
+ * the race finishes about as soon as the best one for this board would alone.
+ *
+ * In FIRST mode the first solution wins. In SHORTEST mode the tasks keep going
+ * until the deadline, and the shortest solution found by then wins, or the first
+ * one after it if none had finished. Either way the other tasks are cancelled, and
+ * the result goes to the GamePlayActivity as if a single SolveGameTask had found it.
+ * If every task fails, so does the race.
+ */
+public class PortfolioSolver implements SolveGameTask.Listener {
+    public static final String TAG = "PortfolioSolver";
+
+    public enum Mode { FIRST, SHORTEST; }
+
+    private final GamePlayActivity mContext;
+    private final SolveGameTask[] mTasks;
+    /**Results are handed to the activity on the thread that made this*/
+    private final Handler mHandler = new Handler();
+
+    private Mode mMode = Mode.FIRST;
+    private long mDeadline;
+
+    private int mTasksLeft;
+    private Node mBestResult;
+    private SolveGameTask mBestTask;
+    private boolean mDeadlinePassed = false;
+    /**Set once the result has been decided*/
+    private boolean mFinished = false;
+    /**Set if the caller stopped the race, so the result is no longer wanted*/
+    private volatile boolean mCancelled = false;
+
+    /**
+     * @param context the activity to send the result to
+     * @param entries the configurations to race
+     * @param frozenTiles the cells whose tiles should not be involved
+     * 	in any moves while solving this goal.
+     * @param gameState the state to solve from
+     */
+    public PortfolioSolver(GamePlayActivity context, PortfolioEntry[] entries, FrozenCells frozenTiles,
+            GameState gameState){
+        mContext = context;
+        mTasks = new SolveGameTask[entries.length];
+
+        for(int i = 0; i < entries.length; i++){
+            mTasks[i] = new SolveGameTask(context, entries[i].heuristic, frozenTiles, gameState,
+                    entries[i].algorithm);
+            mTasks[i].setListener(this);
+        }
+    }
+
+    /**@param timeLimit how many milliseconds each task may search before giving up*/
+    public void setTimeLimit(long timeLimit){
+        for(SolveGameTask task : mTasks){
+            task.setTimeLimit(timeLimit);
+        }
+    }
+
+    /**@param mode whether to take the first solution, or the shortest
+     * @param deadline in SHORTEST mode, how many milliseconds to wait for shorter solutions*/
+    public void setMode(Mode mode, long deadline){
+        mMode = mode;
+        mDeadline = deadline;
+    }
+
+    /**Start every task*/
+    public void start(){
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, "Racing " + mTasks.length + " solvers in " + mMode + " mode");
+        }
+
+        synchronized(this){
+            mTasksLeft = mTasks.length;
+            if(mMode == Mode.SHORTEST){
+                mHandler.postDelayed(mDeadlineReached, mDeadline);
+            }
+        }
+
+        for(SolveGameTask task : mTasks){
+            synchronized(this){
+                if(mFinished) break;
+            }
+            executeInParallel(task);
+        }
+    }
+
+    /**Stop the race without sending a result*/
+    public synchronized void cancel(){
+        mCancelled = true;
+        mFinished = true;
+        mHandler.removeCallbacks(mDeadlineReached);
+        for(SolveGameTask task : mTasks){
+            task.cancel(true);
+        }
+    }
+
+    /**Since Honeycomb, execute() runs tasks one at a time. Before it, tasks already
+     * run in parallel.*/
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private static void executeInParallel(SolveGameTask task){
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB){
+            task.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+        }
+        else{
+            task.execute();
+        }
+    }
+
+    @Override
+    public synchronized void processSolvedGoal(SolveGameTask task, Node result){
+        if(mFinished) return;
+        mTasksLeft--;
+
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, String.format("%s with %s found %s moves", task.getAlgorithm(),
+                    task.getHeuristic().getDescription(), result.getMoveQueue().size()));
+        }
+
+        if(mBestResult == null || result.getCost() < mBestResult.getCost()){
+            mBestResult = result;
+            mBestTask = task;
+        }
+
+        if(mMode == Mode.FIRST || mDeadlinePassed || mTasksLeft == 0){
+            finish();
+        }
+    }
+
+    @Override
+    public synchronized void solverFailed(SolveGameTask task){
+        if(mFinished) return;
+        mTasksLeft--;
+
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, String.format("%s with %s failed", task.getAlgorithm(),
+                    task.getHeuristic().getDescription()));
+        }
+
+        if(mTasksLeft == 0){
+            finish();
+        }
+    }
+
+    /**A solution from a task that is still searching can be taken at the deadline,
+     * or if every other task fails, but doesn't win the race on its own*/
+    @Override
+    public synchronized void solutionImproved(SolveGameTask task, Node solution){
+        if(mFinished) return;
+
+        if(mBestResult == null || solution.getCost() < mBestResult.getCost()){
+            mBestResult = solution;
+            mBestTask = task;
+        }
+
+        if(mDeadlinePassed){
+            finish();
+        }
+    }
+
+    private final Runnable mDeadlineReached = new Runnable(){
+        @Override
+        public void run(){
+            synchronized(PortfolioSolver.this){
+                mDeadlinePassed = true;
+                if(!mFinished && mBestResult != null){
+                    finish();
+                }
+            }
+        }
+    };
+
+    /**Cancel the tasks still running and send the best result to the activity*/
+    private void finish(){
+        mFinished = true;
+        mHandler.removeCallbacks(mDeadlineReached);
+
+        //the best result may come from a task that is still improving on it
+        for(SolveGameTask task : mTasks){
+            task.cancel(true);
+        }
+
+        final Node result = mBestResult;
+        if(result != null && CoreLog.isLoggable()){
+            CoreLog.d(TAG, String.format("Taking the solution from %s with %s", mBestTask.getAlgorithm(),
+                    mBestTask.getHeuristic().getDescription()));
+        }
+
+        //failures can come from a task's background thread
+        mHandler.post(new Runnable(){
+            @Override
+            public void run(){
+                if(mCancelled) return;
+
+                if(result == null){
+                    mContext.solverFailed();
+                }
+                else{
+                    mContext.processSolvedGoal(result);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**An open list backed by a PriorityQueue ordered by the given comparator,
+ * for heuristics whose ordering isn't just the nodes' integer costs.
+ */
+public class PriorityOpenList implements OpenList {
+    private static final int INITIAL_CAPACITY = 100;
+
+    private final PriorityQueue<Node> mQueue;
+
+    public PriorityOpenList(Comparator<Node> comparator){
+        mQueue = new PriorityQueue<Node>(INITIAL_CAPACITY, comparator);
+    }
+
+    @Override
+    public void add(Node node){
+        mQueue.add(node);
+    }
+
+    @Override
+    public Node poll(){
+        return mQueue.poll();
+    }
+
+    @Override
+    public int size(){
+        return mQueue.size();
+    }
+}
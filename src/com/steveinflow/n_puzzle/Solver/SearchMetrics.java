@@ -0,0 +1,172 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+
+/**
+ * Counts what one search did while solving one goal. The solver counts as it goes,
+ * and whatever ran it fills in the time taken and the result when it's done (see
+ * SolverMetrics.record()).
+ *
+ * Counting is a field increment, and a solver only touches its own metrics, so
+ * none of this is synchronized. ParallelSolver gives each worker its own and adds
+ * them up at the end.
+ */
+public class SearchMetrics {
+
+    private final String mGoalType;
+    private final Solver.Algorithm mAlgorithm;
+
+    private long mNodesExpanded = 0;
+    private long mNodesGenerated = 0;
+    private long mDuplicates = 0;
+    private long mHeuristicEvaluations = 0;
+    private long mPeakOpenList = 0;
+    private long mPeakVisitedStates = 0;
+
+    private long mElapsedNanos = 0;
+    private Solver.Status mStatus = Solver.Status.IDLE;
+    /**Moves in the solution, or -1 if there isn't one*/
+    private int mSolutionLength = -1;
+
+    /**@param goal the goal being solved. Its class names the kind of goal.
+     * @param algorithm the search solving it*/
+    public SearchMetrics(Heuristic goal, Solver.Algorithm algorithm){
+        this(goal.getClass().getSimpleName(), algorithm);
+    }
+
+    SearchMetrics(String goalType, Solver.Algorithm algorithm){
+        mGoalType = goalType;
+        mAlgorithm = algorithm;
+    }
+
+    /*----------------------- Counting, from the solvers -----------------------*/
+
+    /**A node's successors were generated*/
+    void nodeExpanded(){
+        mNodesExpanded++;
+    }
+
+    /**A new node was made for a successor state*/
+    void nodeGenerated(){
+        mNodesGenerated++;
+    }
+
+    /**A state was dropped because the search had already seen it*/
+    void duplicate(){
+        mDuplicates++;
+    }
+
+    /**The heuristic estimated a state*/
+    void heuristicEvaluated(){
+        mHeuristicEvaluations++;
+    }
+
+    /**@param size how many nodes the open list holds now*/
+    void openListSize(long size){
+        if(size > mPeakOpenList) mPeakOpenList = size;
+    }
+
+    /**@param size how many states the visited states hold now*/
+    void visitedStates(long size){
+        if(size > mPeakVisitedStates) mPeakVisitedStates = size;
+    }
+
+    /**Add another search's counts to these, for searches split between threads.
+     * The peaks are added too, since the other search held its nodes at the same time.*/
+    void add(SearchMetrics other){
+        mNodesExpanded += other.mNodesExpanded;
+        mNodesGenerated += other.mNodesGenerated;
+        mDuplicates += other.mDuplicates;
+        mHeuristicEvaluations += other.mHeuristicEvaluations;
+        mPeakOpenList += other.mPeakOpenList;
+        mPeakVisitedStates += other.mPeakVisitedStates;
+    }
+
+    /**Record how the search ended
+     * @param elapsedNanos how long solveGoal() took
+     * @param status the solver's status afterward
+     * @param result what solveGoal() returned*/
+    void finish(long elapsedNanos, Solver.Status status, Node result){
+        mElapsedNanos = elapsedNanos;
+        mStatus = status;
+        mSolutionLength = (result == null) ? -1 : result.getCost();
+    }
+
+    /*-------------------------------- Results --------------------------------*/
+
+    /**@return the kind of goal, the simple name of its Heuristic class*/
+    public String getGoalType(){
+        return mGoalType;
+    }
+
+    public Solver.Algorithm getAlgorithm(){
+        return mAlgorithm;
+    }
+
+    public long getNodesExpanded(){
+        return mNodesExpanded;
+    }
+
+    public long getNodesGenerated(){
+        return mNodesGenerated;
+    }
+
+    public long getDuplicates(){
+        return mDuplicates;
+    }
+
+    public long getHeuristicEvaluations(){
+        return mHeuristicEvaluations;
+    }
+
+    /**@return the most nodes the open list held at once*/
+    public long getPeakOpenList(){
+        return mPeakOpenList;
+    }
+
+    /**@return the most states the visited states held at once,
+     *      which is most of the memory a search takes*/
+    public long getPeakVisitedStates(){
+        return mPeakVisitedStates;
+    }
+
+    public long getElapsedNanos(){
+        return mElapsedNanos;
+    }
+
+    public Solver.Status getStatus(){
+        return mStatus;
+    }
+
+    /**@return the moves in the solution, or -1 if the goal wasn't solved*/
+    public int getSolutionLength(){
+        return mSolutionLength;
+    }
+
+    /**@return these metrics as a JSON object*/
+    public String toJSON(){
+        StringBuilder builder = new StringBuilder();
+        appendJSON(builder);
+        return builder.toString();
+    }
+
+    void appendJSON(StringBuilder builder){
+        builder.append("{\"goalType\":\"").append(mGoalType)
+                .append("\",\"algorithm\":\"").append(mAlgorithm)
+                .append("\",\"status\":\"").append(mStatus)
+                .append("\",\"elapsedMicros\":").append(mElapsedNanos / 1000)
+                .append(",\"solutionLength\":").append(mSolutionLength)
+                .append(",\"nodesExpanded\":").append(mNodesExpanded)
+                .append(",\"nodesGenerated\":").append(mNodesGenerated)
+                .append(",\"duplicates\":").append(mDuplicates)
+                .append(",\"heuristicEvaluations\":").append(mHeuristicEvaluations)
+                .append(",\"peakOpenList\":").append(mPeakOpenList)
+                .append(",\"peakVisitedStates\":").append(mPeakVisitedStates)
+                .append('}');
+    }
+
+    @Override
+    public String toString(){
+        return toJSON();
+    }
+}
@@ -0,0 +1,22 @@
+package com.steveinflow.n_puzzle.Solver;
+
+/**Whatever runs a GoalSolver, as the solver sees it: where it checks for
+ * cancellation and reports progress while it searches. SolveGameTask is the
+ * one the app uses. HeadlessSolver runs solvers without Android.
+ */
+public interface SearchMonitor {
+
+    /**@return true if the search should stop without a result*/
+    public boolean isCancelled();
+
+    /**Called regularly while searching. May cancel the search if it runs too long.
+     * @param nodesChecked how many nodes the solver has looked at so far*/
+    public void getUpdate(long nodesChecked);
+
+    /**Solvers that keep improving on their solution call this with each one*/
+    public void publishSolution(Node solution);
+
+    /**@return true if time has run out and the solver should return the solution
+     * it last published*/
+    public boolean isOutOfTime();
+}
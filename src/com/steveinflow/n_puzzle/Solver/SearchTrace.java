@@ -0,0 +1,163 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
+
+/**
+ * Writes the whole tree a search looks at to a binary file, to pick apart offline.
+ * Nothing is traced unless a directory is set, and then each goal's search writes
+ * its own file there, numbered in the order the searches started.
+ *
+ * A search with no trace holds null instead, so tracing costs it a null check per node.
+ *
+ * The file is big-endian, as DataOutputStream writes it:
+ *
+ *     header:    int MAGIC, short VERSION, byte divisions, UTF goal, UTF algorithm
+ *     EXPAND:    byte 1, the tiles by cell (byte each, -1 for the blank), short moves made,
+ *                short estimate
+ *     CHILD:     byte 2, byte Direction ordinal, short estimate
+ *     DUPLICATE: byte 3, byte Direction ordinal
+ *     SOLVED:    byte 4, short moves made
+ *     END:       byte 0
+ *
+ * CHILD and DUPLICATE records follow the EXPAND record of their parent. A child's
+ * board is its parent's with the move made.
+ */
+public class SearchTrace {
+    public static final String TAG = "SearchTrace";
+
+    public static final int MAGIC = 0x4E505452;
+    public static final int VERSION = 1;
+
+    public static final int END = 0;
+    public static final int EXPAND = 1;
+    public static final int CHILD = 2;
+    public static final int DUPLICATE = 3;
+    public static final int SOLVED = 4;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static volatile File sDirectory;
+    private static final AtomicInteger sNextTrace = new AtomicInteger();
+
+    private final File mFile;
+    /**null once the trace is closed, or a write has failed*/
+    private DataOutputStream mOut;
+
+    /**@param directory where to write traces, or null to stop tracing*/
+    public static void setDirectory(File directory){
+        sDirectory = directory;
+    }
+
+    /**Start a trace of a search, if tracing is on.
+     * @return the trace to write to, or null if there isn't one*/
+    public static SearchTrace open(Heuristic goal, Solver.Algorithm algorithm, GameState beginState){
+        File directory = sDirectory;
+        if(directory == null) return null;
+
+        File file = new File(directory, String.format("trace-%05d-%s.bin",
+                sNextTrace.getAndIncrement(), goal.getClass().getSimpleName()));
+        try{
+            return new SearchTrace(file, goal, algorithm, beginState.getNumDivisions());
+        }
+        catch(IOException e){
+            CoreLog.d(TAG, "Couldn't start a trace in " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private SearchTrace(File file, Heuristic goal, Solver.Algorithm algorithm, int numDivisions)
+            throws IOException {
+        mFile = file;
+        mOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        mOut.writeInt(MAGIC);
+        mOut.writeShort(VERSION);
+        mOut.writeByte(numDivisions);
+        mOut.writeUTF(goal.getDescription());
+        mOut.writeUTF(algorithm.name());
+    }
+
+    /**The node's successors are about to be made*/
+    public void expand(Node node){
+        if(mOut == null) return;
+        try{
+            GameState state = node.getEndState();
+            mOut.writeByte(EXPAND);
+            for(int cell = 0; cell < state.getNumTiles(); cell++){
+                mOut.writeByte(state.getByCell(cell));
+            }
+            mOut.writeShort(node.getCost());
+            mOut.writeShort(node.getEstimate());
+        }
+        catch(IOException e){
+            fail(e);
+        }
+    }
+
+    /**A successor of the last node expanded was added to the open list*/
+    public void child(GameState.Direction move, int estimate){
+        if(mOut == null) return;
+        try{
+            mOut.writeByte(CHILD);
+            mOut.writeByte(move.ordinal());
+            mOut.writeShort(estimate);
+        }
+        catch(IOException e){
+            fail(e);
+        }
+    }
+
+    /**A successor of the last node expanded had already been seen*/
+    public void duplicate(GameState.Direction move){
+        if(mOut == null) return;
+        try{
+            mOut.writeByte(DUPLICATE);
+            mOut.writeByte(move.ordinal());
+        }
+        catch(IOException e){
+            fail(e);
+        }
+    }
+
+    public void solved(Node node){
+        if(mOut == null) return;
+        try{
+            mOut.writeByte(SOLVED);
+            mOut.writeShort(node.getCost());
+        }
+        catch(IOException e){
+            fail(e);
+        }
+    }
+
+    /**Finish the file. The trace ignores anything written after this.*/
+    public void close(){
+        if(mOut == null) return;
+        try{
+            mOut.writeByte(END);
+            mOut.close();
+        }
+        catch(IOException e){
+            fail(e);
+        }
+        mOut = null;
+    }
+
+    private void fail(IOException e){
+        CoreLog.d(TAG, "Stopped tracing to " + mFile + ": " + e.getMessage());
+        try{
+            mOut.close();
+        }
+        catch(IOException ignored){
+        }
+        mOut = null;
+    }
+}
@@ -1,17 +1,14 @@
 package com.steveinflow.n_puzzle.Solver;
 
-import android.graphics.Point;
-import android.util.Log;
-
-import com.steveinflow.n_puzzle.DifficultyManager;
+import com.steveinflow.n_puzzle.GameState.Coordinate;
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
 import com.steveinflow.n_puzzle.GameState.GameState;
 import com.steveinflow.n_puzzle.Solver.Heuristics.BlankToTarget;
 import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
 import com.steveinflow.n_puzzle.Solver.Heuristics.SolveLast6;
 import com.steveinflow.n_puzzle.Solver.Heuristics.TargetToDestination;
 
-import java.util.ArrayList;
-
 /**
  * The SolutionStrategy supplies the heuristics to solve 
  * each goal in succession.
@@ -21,10 +18,15 @@ import java.util.ArrayList;
 public class SolutionStrategy {
 
     private static final String TAG = "SolutionStrategy";
+
+    /**Boards with at least this many divisions solve the last 6 tiles with IDA*,
+     * which doesn't keep the states it has seen, instead of A*.*/
+    public static int IDA_STAR_MIN_DIVISIONS = 5;
+
     private final int ROW_LENGTH;
     private final int COL_LENGTH;
 
-    private ArrayList<Point> mFrozenTiles;
+    private FrozenCells mFrozenTiles;
 
     private boolean atEndOfRow;
     private boolean atEndOfCol;
@@ -40,14 +42,19 @@ public class SolutionStrategy {
      * place where it doesn't belong, and
      * then unfreeze it once the maneuver is over.
      */
-    private Point temporaryFreeze;
+    private Coordinate temporaryFreeze;
+
+    /**The goal last returned by getNextGoal(), and the frozen cells when it was looked up*/
+    private Heuristic mCurrentGoal;
+    private long mCurrentFrozenMask;
     private boolean mSolvingLast6 = false;
     private boolean mFinished = false;
 
-    public SolutionStrategy(GameState gameState, DifficultyManager.Difficulty difficulty){
-        ROW_LENGTH = difficulty.getNumDivisions();
+    /**@param numDivisions the number of rows or columns on the board*/
+    public SolutionStrategy(GameState gameState, int numDivisions){
+        ROW_LENGTH = numDivisions;
         COL_LENGTH = ROW_LENGTH;
-        mFrozenTiles = new ArrayList<Point>();
+        mFrozenTiles = new FrozenCells(ROW_LENGTH);
 
         getFirstUnsolvedIndex(gameState);
 
@@ -57,17 +64,15 @@ public class SolutionStrategy {
     public void getFirstUnsolvedIndex(GameState gameState){
 
         while(indexToSolve < gameState.getNumTiles() - 1){
-            Point correct = GameState.getCorrectLocationForIndex(indexToSolve, ROW_LENGTH);
-            Point actual = gameState.getLocation(indexToSolve);
-            if(!correct.equals(actual)){
-            	/*Log.d(TAG, String.format("Point actual: %s, Point correct: %s", actual, correct));
-            	Log.d(TAG, "index " + indexToSolve + " is not in the correct place, stopping freezes");*/
+            //a tile's index is the number of the cell it belongs in
+            if(gameState.getCellOf(indexToSolve) != indexToSolve){
+            	/*CoreLog.d(TAG, "index " + indexToSolve + " is not in the correct place, stopping freezes");*/
                 break;
             }
 
             //freeze the index so that it doesn't get moved
             if(!inLastSix(indexToSolve)){
-	            //Log.d(TAG, indexToSolve + " is already solved, freezing");
+	            //CoreLog.d(TAG, indexToSolve + " is already solved, freezing");
 	            freezeIndex(indexToSolve);
             }
             getNextIndex();
@@ -91,12 +96,13 @@ public class SolutionStrategy {
      */
     public Heuristic getNextGoal(GameState gameState){
         Heuristic nextHeuristic = null;
+        mCurrentGoal = null;
 
         getFirstUnsolvedIndex(gameState);
         
         //Everything is solved
         if(mFinished){
-            Log.d(TAG, "Solved everything, solver stopping");
+            CoreLog.d(TAG, "Solved everything, solver stopping");
             return null;
         }
 
@@ -114,7 +120,7 @@ public class SolutionStrategy {
                 freezeTemp(lastIndexSolved);
 
                 nextHeuristic = new BlankToTarget(indexToPutBlankBelow, GameState.Direction.DOWN);
-                Log.d(TAG, "End of row: Getting blank tile below index " +
+                CoreLog.d(TAG, "End of row: Getting blank tile below index " +
                     indexToPutBlankBelow);
             }
 
@@ -126,7 +132,7 @@ public class SolutionStrategy {
                 freezeTemp(lastIndexSolved);
 
                 nextHeuristic = new BlankToTarget(indexToPutBlankBeside, GameState.Direction.RIGHT);
-                Log.d(TAG, "End of col: Getting blank tile beside index " +
+                CoreLog.d(TAG, "End of col: Getting blank tile beside index " +
                     indexToPutBlankBeside);
             }
 
@@ -134,13 +140,13 @@ public class SolutionStrategy {
             //to solve the last 6 tiles
             else if(inLastSix(indexToSolve)){
                 mSolvingLast6 = true;
-                return new SolveLast6();
+                nextHeuristic = new SolveLast6();
             }
 
             //simply get the blank tile next to the next tile we want to solve
             else{
                 nextHeuristic = new BlankToTarget(indexToSolve, GameState.Direction.RIGHT);
-                Log.d(TAG, "Getting blank tile to index " + indexToSolve);
+                CoreLog.d(TAG, "Getting blank tile to index " + indexToSolve);
             }
         }
 
@@ -149,29 +155,30 @@ public class SolutionStrategy {
         else{
             if(indexToSolve >= ROW_LENGTH * COL_LENGTH) return null;
 
-            Point destination = GameState.getCorrectLocationForIndex(indexToSolve, ROW_LENGTH);
+            Coordinate destination = GameState.getCorrectLocationForIndex(indexToSolve, ROW_LENGTH);
 
             //If this tile is on the end of the row
             if(destination.x == ROW_LENGTH - 1){
-                Log.d(TAG, "End of row flag turned on, index " + indexToSolve);
+                CoreLog.d(TAG, "End of row flag turned on, index " + indexToSolve);
                 atEndOfRow = true;
                 destination.y = destination.y + 1;
             }
 
             //If this tile is on the end of a column
             if(destination.y == COL_LENGTH - 1){
-                Log.d(TAG, "End of col flag turned on, index " + indexToSolve);
+                CoreLog.d(TAG, "End of col flag turned on, index " + indexToSolve);
                 atEndOfCol = true;
                 destination.x = destination.x + 1;
             }
 
-            Log.d(TAG, String.format("Solving for index %s. The Location is RC(%s, %s)",
+            CoreLog.d(TAG, String.format("Solving for index %s. The Location is RC(%s, %s)",
                     indexToSolve, destination.y, destination.x));
 
             nextHeuristic = new TargetToDestination(indexToSolve, destination);
 
         }
 
+        mCurrentGoal = nextHeuristic;
         return nextHeuristic;
     }
 
@@ -200,7 +207,7 @@ public class SolutionStrategy {
             moveBlank = true;
         }
 
-        Log.d(TAG, "Goal solved, turned moveBlank flag to " + moveBlank);
+        CoreLog.d(TAG, "Goal solved, turned moveBlank flag to " + moveBlank);
     }
 
 
@@ -213,14 +220,13 @@ public class SolutionStrategy {
      * the tiles in their frozen places when complete.
      */
     private void freezeIndex(int index){
-        Point pointToFreeze = GameState.getCorrectLocationForIndex(index, ROW_LENGTH);
+        Coordinate pointToFreeze = GameState.getCorrectLocationForIndex(index, ROW_LENGTH);
 
         if(pointToFreeze == null) return;
 
-        //Log.d(TAG, "Freezing point (R, C) " + pointToFreeze.y + ", " +pointToFreeze.x);
+        //CoreLog.d(TAG, "Freezing point (R, C) " + pointToFreeze.y + ", " +pointToFreeze.x);
 
-        if(!mFrozenTiles.contains(pointToFreeze))
-            mFrozenTiles.add(pointToFreeze);
+        mFrozenTiles.freeze(pointToFreeze);
 
     }
 
@@ -233,7 +239,7 @@ public class SolutionStrategy {
      * @param index the tile that is being inserted.
      */
     private void freezeTemp(int index){
-        Point pointToFreeze = GameState.getCorrectLocationForIndex(index, ROW_LENGTH);
+        Coordinate pointToFreeze = GameState.getCorrectLocationForIndex(index, ROW_LENGTH);
 
         //Inserting at end of row- the tile is placed below where it wants to be
         if(atEndOfRow){
@@ -245,9 +251,9 @@ public class SolutionStrategy {
             pointToFreeze.x = pointToFreeze.x + 1;
         }
 
-        Log.d(TAG, "Temporary freeze (R, C) "+ pointToFreeze.y + ", " +pointToFreeze.x);
+        CoreLog.d(TAG, "Temporary freeze (R, C) "+ pointToFreeze.y + ", " +pointToFreeze.x);
 
-        mFrozenTiles.add(pointToFreeze);
+        mFrozenTiles.freeze(pointToFreeze);
         temporaryFreeze = pointToFreeze;
 
     }
@@ -256,7 +262,7 @@ public class SolutionStrategy {
      * maneuvers. After the line end maneuver is fetched, the tile should be unfrozen again.
      */
     private void tempUnfreeze(){
-        mFrozenTiles.remove(temporaryFreeze);
+        if(temporaryFreeze != null) mFrozenTiles.unfreeze(temporaryFreeze);
     }
 
 ///////////////////////////////////////////////////////////////////////////////////////
@@ -264,7 +270,7 @@ public class SolutionStrategy {
 ///////////////////////////////////////////////////////////////////////////////////////
     public void getNextIndex(){
 
-        Point location = GameState.getCorrectLocationForIndex(indexToSolve, ROW_LENGTH);
+        Coordinate location = GameState.getCorrectLocationForIndex(indexToSolve, ROW_LENGTH);
 
         if(!inLastTwoRows(location)){
             indexToSolve++;
@@ -293,14 +299,14 @@ public class SolutionStrategy {
      *
      * @return true if the tile is the last two rows
      */
-    private boolean inLastTwoRows(Point location){
+    private boolean inLastTwoRows(Coordinate location){
 
         final int UPPER_BOUND = COL_LENGTH - 2;
         final int LOWER_BOUND = COL_LENGTH - 1;
 
         boolean result = location.y <= LOWER_BOUND && location.y >= UPPER_BOUND;
 
-        //Log.d(TAG, "Last two rows for index " + indexToSolve + ": " + result);
+        //CoreLog.d(TAG, "Last two rows for index " + indexToSolve + ": " + result);
 
         return result;
     }
@@ -317,7 +323,7 @@ public class SolutionStrategy {
      *  tiles of the gamegrid
      */
     private boolean inLastSix(int index){
-        Point location = GameState.getCorrectLocationForIndex(index, ROW_LENGTH);
+        Coordinate location = GameState.getCorrectLocationForIndex(index, ROW_LENGTH);
 
         final int UPPER_BOUND = COL_LENGTH - 2;
         final int LOWER_BOUND = COL_LENGTH - 1;
@@ -327,7 +333,7 @@ public class SolutionStrategy {
         boolean result = location.x <= RIGHT_BOUND && location.x >= LEFT_BOUND
                 && location.y <= LOWER_BOUND && location.y >= UPPER_BOUND;
 
-        /*Log.d(TAG, String.format("inLastSix for Location is RC(%s, %s). " +
+        /*CoreLog.d(TAG, String.format("inLastSix for Location is RC(%s, %s). " +
                 "Result is %s.", location.y, location.x, result));*/
         return result;
     }
@@ -360,7 +366,7 @@ public class SolutionStrategy {
 
         //After the row end maneuver, we'll move the blank to the next
         //index to solve.
-        Log.d(TAG, "Lind end maneuver added, turning moveBlank flag to true");
+        CoreLog.d(TAG, "Lind end maneuver added, turning moveBlank flag to true");
         moveBlank = true;
 
         //unfreeze the tile that was temporarily frozen for the line end maneuver
@@ -401,7 +407,7 @@ public class SolutionStrategy {
             mRowEndManeuver.add(GameState.Direction.DOWN);
         }
 
-        Log.d(TAG, "Row end, getting row end maneuver");
+        CoreLog.d(TAG, "Row end, getting row end maneuver");
         return mRowEndManeuver;
     }
 
@@ -443,12 +449,65 @@ public class SolutionStrategy {
             mColEndManeuver.add(GameState.Direction.RIGHT);
         }
 
-        Log.d(TAG, "Col end, getting col end maneuver");
+        CoreLog.d(TAG, "Col end, getting col end maneuver");
         return mColEndManeuver;
     }
 
 
-    public ArrayList<Point> getFrozenTiles(){
+    /**@return the search to solve the goal last returned by getNextGoal() with*/
+    public Solver.Algorithm getAlgorithm(){
+        if(mSolvingLast6 && ROW_LENGTH >= IDA_STAR_MIN_DIVISIONS){
+            return Solver.Algorithm.IDA_STAR;
+        }
+        return Solver.Algorithm.A_STAR;
+    }
+
+    /**Call this after getNextGoal().
+     *
+     * @param goal the goal last returned by getNextGoal()
+     * @return solver configurations to race on the goal (see PortfolioSolver),
+     *      or null to solve it with a single solver
+     */
+    public PortfolioEntry[] getPortfolio(Heuristic goal){
+        return null;
+    }
+
+    /**Some goals have a known solution, and don't need to be searched for.
+     * Call this after getNextGoal().
+     *
+     * @param gameState the state the goal is being solved from
+     * @return the moves that solve the goal last returned by getNextGoal(),
+     *      or null if the goal has to be searched for
+     */
+    public MoveQueue getPrecomputedSolution(GameState gameState){
+        if(mCurrentGoal == null) return null;
+        mCurrentFrozenMask = mFrozenTiles.getMask();
+
+        if(mSolvingLast6){
+            return LastSixTable.getTable().getSolution(gameState);
+        }
+        return MacroCache.getCache().get(mCurrentGoal, gameState, mCurrentFrozenMask);
+    }
+
+    /**Keep the solution to the goal last returned by getNextGoal(), so it can be
+     * reused by getPrecomputedSolution() when the goal comes up again.
+     *
+     * @param result the solution, with the state the goal was solved from
+     */
+    public void cacheSolution(Node result){
+        if(mCurrentGoal == null) return;
+
+        MacroCache.getCache().put(mCurrentGoal, result.getBeginningState(),
+                mCurrentFrozenMask, result.getMoveQueue());
+    }
+
+    /**@return how many milliseconds the solver may take on the goal last returned
+     * by getNextGoal()*/
+    public long getTimeLimit(){
+        return Solver.MAX_TIME_ALLOWED;
+    }
+
+    public FrozenCells getFrozenTiles(){
         return mFrozenTiles;
     }
 
@@ -1,34 +1,70 @@
 package com.steveinflow.n_puzzle.Solver;
 
-import android.graphics.Point;
 import android.os.AsyncTask;
 import android.util.Log;
 
 import com.steveinflow.n_puzzle.GamePlayActivity;
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
 import com.steveinflow.n_puzzle.GameState.GameState;
 import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
 
-import java.util.ArrayList;
-
-/**SolveGameTask is a background thread that wraps a Solver.
+/**SolveGameTask is a background thread that wraps a Solver. It is the Android
+ * side of the solver: the solver reports to it as a SearchMonitor, and it passes
+ * the result on to the GamePlayActivity.
  * 
  * Created by stepheno on 7/4/13.
  */
-public class SolveGameTask extends AsyncTask<Integer, Long, Node> {
+public class SolveGameTask extends AsyncTask<Integer, Long, Node> implements SearchMonitor {
     public final String TAG = "SolveGameTask";
 
     private long mStartTime;
-    private Solver mSolver;
+    private GoalSolver mSolver;
+    private Heuristic mHeuristic;
     private GamePlayActivity mContext;
+    private Solver.Algorithm mAlgorithm;
+    /**Gets the result instead of mContext, if set*/
+    private Listener mListener;
+
+    /**Receives the result of a SolveGameTask in place of the GamePlayActivity,
+     * for callers that run more than one task at a time.*/
+    public interface Listener {
+        /**Called in onPostExecute with the solution*/
+        public void processSolvedGoal(SolveGameTask task, Node result);
+
+        /**Called when the task gives up, from onPostExecute or, if the task ran out
+         * of time, from its background thread*/
+        public void solverFailed(SolveGameTask task);
+
+        /**Called in onProgressUpdate when the solver has found a shorter solution
+         * but is still searching*/
+        public void solutionImproved(SolveGameTask task, Node solution);
+    }
+
+    /**The best solution the solver has published, if it finds more than one*/
+    private volatile Node mBestSolution;
+    /**The last solution passed on in onProgressUpdate*/
+    private Node mReportedSolution;
+    /**Set when time runs out with a solution in hand. The solver should stop and return it.*/
+    private volatile boolean mOutOfTime = false;
 
     /**If the thread runs longer than this amount, it stops itself.
      * Solving a goal should not take this long.
      */
-    public static final long MAX_TIME_ALLOWED = 30000;
+    public static final long MAX_TIME_ALLOWED = Solver.MAX_TIME_ALLOWED;
+    private long mTimeLimit = MAX_TIME_ALLOWED;
 
     public SolveGameTask(GamePlayActivity context, Heuristic heuristic,
-            ArrayList<Point> frozenTiles, GameState gameState){
+            FrozenCells frozenTiles, GameState gameState){
+        this(context, heuristic, frozenTiles, gameState, Solver.Algorithm.A_STAR);
+    }
+
+    /**@param algorithm which search to solve the goal with*/
+    public SolveGameTask(GamePlayActivity context, Heuristic heuristic,
+            FrozenCells frozenTiles, GameState gameState, Solver.Algorithm algorithm){
         mContext = context;
+        mHeuristic = heuristic;
+        mAlgorithm = algorithm;
 
 
         //strategy is out of goals
@@ -36,11 +72,31 @@ public class SolveGameTask extends AsyncTask<Integer, Long, Node> {
             this.cancel(true);
         }
         else{
-        	Log.d(TAG, "Solvegametask starting for Gamestate: \n" + gameState.toString());
-            mSolver = new Solver(this, heuristic, gameState, frozenTiles);
+        	if(CoreLog.DEBUG_VERBOSE){
+        		Log.d(TAG, "Solvegametask starting for Gamestate: \n" + gameState.toString());
+        	}
+            mSolver = Solver.create(algorithm, this, heuristic, gameState, frozenTiles);
         }
     }
 
+    /**@param listener gets the result instead of the GamePlayActivity*/
+    public void setListener(Listener listener){
+        mListener = listener;
+    }
+
+    public Solver.Algorithm getAlgorithm(){
+        return mAlgorithm;
+    }
+
+    public Heuristic getHeuristic(){
+        return mHeuristic;
+    }
+
+    /**@param timeLimit how many milliseconds to search before giving up*/
+    public void setTimeLimit(long timeLimit){
+        mTimeLimit = timeLimit;
+    }
+
     @Override
     protected Node doInBackground(Integer... args) {
         Log.d(TAG, "Starting solver");
@@ -49,30 +105,67 @@ public class SolveGameTask extends AsyncTask<Integer, Long, Node> {
             return null;
         }
 
+        //building tables for the heuristic doesn't count against the time limit
+        mHeuristic.prepare();
+
         mStartTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         Node result = mSolver.solveGoal();
+        SolverMetrics.getMetrics().record(mSolver, result, System.nanoTime() - startNanos);
 
         return result;
     }
 
-    public void getUpdate(Long... values){
+    /**The solution is passed on in onProgressUpdate, and if time runs out the
+     * solver is told to stop and return it rather than the task failing.*/
+    @Override
+    public void publishSolution(Node solution){
+        mBestSolution = solution;
+    }
+
+    @Override
+    public boolean isOutOfTime(){
+        return mOutOfTime;
+    }
+
+    @Override
+    public void getUpdate(long nodesChecked){
         long timePassed = System.currentTimeMillis() - mStartTime;
 
-        /*if this task has gone on for more than the allowed time, stop the task
+        /*if this task has gone on for more than the allowed time, stop the task,
+        unless the solver has a solution to hand back
          */
-        if(timePassed > MAX_TIME_ALLOWED){
+        if(timePassed > mTimeLimit && mBestSolution != null){
+            if(!mOutOfTime){
+                if(CoreLog.isLoggable()){
+                    CoreLog.d(TAG, String.format("Solver out of time after %s seconds, taking the best " +
+                            "solution so far. %s nodes were checked.", timePassed/1000, nodesChecked));
+                }
+                mOutOfTime = true;
+            }
+        }
+        else if(timePassed > mTimeLimit){
             Log.d(TAG, String.format("Solver stopping itself after %s seconds with no solution" +
-                    ". %s nodes were checked.", timePassed/1000, values[0]));
+                    ". %s nodes were checked.", timePassed/1000, nodesChecked));
             this.cancel(true);
-            mContext.solverFailed();
+            notifyFailed();
         }
 
-        publishProgress(values);
+        publishProgress(nodesChecked);
     }
 
     @Override
     protected void onProgressUpdate(Long... values) {
         super.onProgressUpdate(values);
+
+        Node solution = mBestSolution;
+        if(solution != null && solution != mReportedSolution){
+            mReportedSolution = solution;
+            if(CoreLog.isLoggable()){
+                CoreLog.d(TAG, "Solver improved its solution to " + solution.getMoveQueue().size() + " moves");
+            }
+            if(mListener != null) mListener.solutionImproved(this, solution);
+        }
         //Long statesChecked = values[0];
         //Log.d(TAG, String.format("Solving... States Checked: %s", statesChecked));
     }
@@ -88,7 +181,7 @@ public class SolveGameTask extends AsyncTask<Integer, Long, Node> {
 
         if(result == null){
             Log.d(TAG, "SolveGameTask finished, but the result was null");
-            mContext.solverFailed();
+            notifyFailed();
             return;
         }
 
@@ -96,7 +189,21 @@ public class SolveGameTask extends AsyncTask<Integer, Long, Node> {
         Log.d(TAG, String.format("Solver has solved the current goal. It took %s milliseconds. There are " +
                 "%s moves in the solution's MoveQueue.",
                 runTime, numMoves));
-        mContext.processSolvedGoal(result);
+        if(mListener != null){
+            mListener.processSolvedGoal(this, result);
+        }
+        else{
+            mContext.processSolvedGoal(result);
+        }
+    }
+
+    private void notifyFailed(){
+        if(mListener != null){
+            mListener.solverFailed(this);
+        }
+        else{
+            mContext.solverFailed();
+        }
     }
 
 }
@@ -1,16 +1,9 @@
 package com.steveinflow.n_puzzle.Solver;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.PriorityQueue;
-import java.util.Set;
-
-import android.graphics.Point;
-import android.util.Log;
-
-import com.steveinflow.n_puzzle.GamePlayActivity;
+import com.steveinflow.n_puzzle.GameState.CoreLog;
+import com.steveinflow.n_puzzle.GameState.FrozenCells;
 import com.steveinflow.n_puzzle.GameState.GameState;
+import com.steveinflow.n_puzzle.GameState.MoveTable;
 import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
 
 /**
@@ -19,89 +12,145 @@ import com.steveinflow.n_puzzle.Solver.Heuristics.Heuristic;
  * 
  * Created by stepheno on 6/24/13.
  */
-public class Solver {
+public class Solver implements GoalSolver {
     public static final String TAG = "Solver";
 
-    private SolveGameTask mParent;
+    /**The most memory the visited states may take up. A quarter of the heap by default.*/
+    public static long MAX_VISITED_STATE_BYTES = Runtime.getRuntime().maxMemory() / 4;
+
+    private SearchMonitor mParent;
     private Heuristic mHeuristic;
     private boolean debug_print_everything;
     private GameState mBeginState;
     private long mNodesChecked = 0;
+    private final SearchMetrics mMetrics;
+    /**Where the search tree is written, if tracing is on (see SearchTrace)*/
+    private SearchTrace mTrace;
 
-    private PriorityQueue<Node> mPossibleSuccessors;
+    private OpenList mPossibleSuccessors;
 
     /**Store visited states in a hashset to avoid looking at them twice.*/
-    private Set<GameState> mVisitedStates;
+    private VisitedStateSet mVisitedStates;
 
     /**These tiles are already solved and should not be moved. Don't
-     * consider any branches that result from moving these.*/
-    private ArrayList<Point> mFrozenTiles;
+     * consider any branches that result from moving these.
+     * One bit per cell, copied when the solver starts.*/
+    private long mFrozenMask;
+    private FrozenCells mFrozenTiles;
 
     public enum Status { SOLVING, SOLVED, FAILED, IDLE, CANCELLED; }
+
+    /**The search a SolveGameTask runs: this class, IDAStarSolver, BidirectionalSolver,
+     * ParallelSolver or AnytimeSolver*/
+    public enum Algorithm { A_STAR, IDA_STAR, BIDIRECTIONAL, PARALLEL_A_STAR, ANYTIME_A_STAR; }
+
+    /**How many milliseconds a goal may take to solve before giving up.
+     * Solving a goal should not take this long.*/
+    public static final long MAX_TIME_ALLOWED = 30000;
+
     private Status mStatus = Status.IDLE;
 
+    /**Make the solver for the given algorithm
+     *
+     * @param algorithm which search to solve the goal with
+     * @param parentThread what runs the solver: checked for cancellation and given progress
+     * @param goal the heuristic for the goal
+     * @param beginState the origin state to solve from
+     * @param frozenTiles the cells whose tiles should not be involved
+     * 	in any moves while solving this goal.
+     */
+    public static GoalSolver create(Algorithm algorithm, SearchMonitor parentThread, Heuristic goal,
+            GameState beginState, FrozenCells frozenTiles){
+        switch(algorithm){
+            case IDA_STAR:
+                return new IDAStarSolver(parentThread, goal, beginState, frozenTiles);
+            case BIDIRECTIONAL:
+                return new BidirectionalSolver(parentThread, goal, beginState, frozenTiles);
+            case PARALLEL_A_STAR:
+                return new ParallelSolver(parentThread, goal, beginState, frozenTiles);
+            case ANYTIME_A_STAR:
+                return new AnytimeSolver(parentThread, goal, beginState, frozenTiles);
+            default:
+                return new Solver(parentThread, goal, beginState, frozenTiles);
+        }
+    }
+
 
     /** 
-     * @param parentThread The SolveGameTask (AsyncTask) that contains this solver 
+     * @param parentThread what runs this solver: checked for cancellation and given progress
      * @param goal the heuristic that will compare gamestates to determine what is best,
      * 		and will check gamestates to see if they solve the goal
      * @param beginState the origin state to solve from
-     * @param frozenTiles a list of tiles (as Cartesian points) that should not be involved
+     * @param frozenTiles the cells whose tiles should not be involved
      * 	in any moves while solving this goal.
      */
-    public Solver(SolveGameTask parentThread, Heuristic goal, GameState beginState,
-                  ArrayList<Point> frozenTiles){
+    public Solver(SearchMonitor parentThread, Heuristic goal, GameState beginState,
+                  FrozenCells frozenTiles){
         mParent = parentThread;
         mHeuristic = goal;
         debug_print_everything = false; //mHeuristic instanceof SolveLast6;
         
         mBeginState = beginState;
         mFrozenTiles = frozenTiles;
-
-        Log.d(TAG, "Starting solver for goal: " + mHeuristic.getDescription());
-        Log.d(TAG, "BeginState: \n" + beginState.toString());
-        Log.d(TAG, "csv: " + beginState.toCSV());
-        Log.d(TAG, "Frozen Tiles: " + printFrozen());
+        mFrozenMask = (frozenTiles == null) ? 0L : frozenTiles.getMask();
+        mMetrics = new SearchMetrics(goal, Algorithm.A_STAR);
+
+        if(CoreLog.isLoggable()){
+            CoreLog.d(TAG, "Starting solver for goal: " + mHeuristic.getDescription());
+            CoreLog.d(TAG, "BeginState: \n" + beginState.toString());
+            CoreLog.d(TAG, "csv: " + beginState.toCSV());
+            CoreLog.d(TAG, "Frozen Tiles: " + printFrozen());
+        }
     }
     
     /**debug method to print the current frozen tiles*/
     public String printFrozen(){
-    	StringBuffer buffer = new StringBuffer();
-    	for(Point p : mFrozenTiles){
-    		buffer.append(p.toString());
-    		buffer.append(";");
-    	}
-    	
-    	return buffer.toString();
+    	return String.valueOf(mFrozenTiles);
     }
     
     /**debug method to print all states that have been visited*/
     public void printVisited(){
-    	for(GameState state : mVisitedStates){
-    		Log.d(TAG, "visited " + state.toCSV());
-    	}
+    	CoreLog.d(TAG, "visited states: " + mVisitedStates.size());
     }
 
+    @Override
     public Status getStatus(){
         return mStatus;
     }
+
+    /**The visited states only grow, so their peak is how many there are*/
+    @Override
+    public SearchMetrics getMetrics(){
+        if(mVisitedStates != null) mMetrics.visitedStates(mVisitedStates.size());
+        return mMetrics;
+    }
     
     /**Start solving. Expand the origin node and search until a solution is found.
      * @return a node containing the solution state, and the MoveQueue to get there.
      */
+    @Override
     public Node solveGoal(){
         mStatus = Status.SOLVING;
+        mTrace = SearchTrace.open(mHeuristic, Algorithm.A_STAR, mBeginState);
 
-        mVisitedStates = new HashSet<GameState>();
+        mVisitedStates = new VisitedStateSet(mBeginState, MAX_VISITED_STATE_BYTES);
 
-        //initialize priority queue
-        mPossibleSuccessors = new PriorityQueue<Node>(
-                100, (Comparator<Node>) mHeuristic);
+        //initialize priority queue. Integer costs can go straight into buckets.
+        if(mHeuristic.hasIntegerCosts()){
+            mPossibleSuccessors = new BucketOpenList();
+        }
+        else{
+            mPossibleSuccessors = new PriorityOpenList(mHeuristic);
+        }
 
         Node originNode = new Node(mBeginState);
+        originNode.setEstimate(mHeuristic.estimate(mBeginState));
+        mMetrics.heuristicEvaluated();
 
         //If the goal has already been achieved, don't do anything
         if(mHeuristic.checkIfSolved(originNode)){
+            mStatus = Status.SOLVED;
+            if(mTrace != null) mTrace.close();
             return originNode;
         }
 
@@ -126,10 +175,10 @@ public class Solver {
             nextNode = mPossibleSuccessors.poll();
             mNodesChecked++;
 
-            if(GamePlayActivity.DEBUG_VERBOSE) Log.d(TAG, "Solver checking node #" + mNodesChecked);
+            if(CoreLog.DEBUG_VERBOSE) CoreLog.d(TAG, "Solver checking node #" + mNodesChecked);
 
             if(nextNode == null){
-                Log.d(TAG, "Solver terminating before solution found, no successors left");
+                CoreLog.d(TAG, "Solver terminating before solution found, no successors left");
                 mStatus = Status.FAILED;
                 break;
             }
@@ -139,10 +188,11 @@ public class Solver {
             //Check if this node solves the goal, return it if so
             if(mHeuristic.checkIfSolved(nextNode)){
 
-            	Log.d(TAG, "Solution found!");            	
+            	CoreLog.d(TAG, "Solution found!");
+            	if(mTrace != null) mTrace.solved(nextNode);
 	            if(debug_print_everything){
-	            	Log.d(TAG, endState.toString());
-	            	Log.d(TAG, nextNode.getMoveQueue().toString());
+	            	CoreLog.d(TAG, endState.toString());
+	            	CoreLog.d(TAG, nextNode.getMoveQueue().toString());
 	            }
 	            mStatus = Status.SOLVED;
 	            break;
@@ -155,26 +205,36 @@ public class Solver {
             }
         }
 
-        if(mStatus == Status.CANCELLED){
+        if(mTrace != null) mTrace.close();
+
+        //a node that doesn't solve the goal is no use to the caller
+        if(mStatus != Status.SOLVED){
             return null;
         }
 
         return nextNode;
     }
     
-    /**Adding a node to the hashset can cause an outofmemoryerror. Extracted
-     * this module to catch that error.  */
+    /**The visited set has a memory limit, and adding a node to it can still
+     * cause an outofmemoryerror. Extracted this module to handle both.  */
     public boolean addToVisitedStates(GameState gameState){
+    	if(mVisitedStates.isFull()){
+    		CoreLog.d(TAG, "Visited states reached the memory limit while solving: "
+    				+ mVisitedStates.size());
+    		mStatus = Status.FAILED;
+    		return false;
+    	}
+
     	try{
         	mVisitedStates.add(gameState);
         	
         	if(debug_print_everything){
-        		Log.d(TAG, "adding state to visistedStates: " + gameState.toCSV());
-        		Log.d(TAG, "visited states: " + mVisitedStates.size());
+        		CoreLog.d(TAG, "adding state to visistedStates: " + gameState.toCSV());
+        		CoreLog.d(TAG, "visited states: " + mVisitedStates.size());
         	}
         }
         catch(OutOfMemoryError e){
-        	Log.d(TAG, "Ran out of internal memory while solving");
+        	CoreLog.d(TAG, "Ran out of internal memory while solving");
         	mStatus = Status.FAILED;
         	return false;
         }
@@ -187,17 +247,21 @@ public class Solver {
      */
     private void addSuccessors(Node node){
         final GameState previousState = node.getEndState();
-        ArrayList<GameState.Direction> legalMoves = previousState.getLegalMoves((mFrozenTiles));
+        final int previousBlankCell = previousState.getBlankCell();
+        int legalMoves = previousState.getLegalMoveFlags(mFrozenMask);
+        mMetrics.nodeExpanded();
+        if(mTrace != null) traceSuccessors(node, legalMoves);
 
         if(debug_print_everything){
-        	Log.d(TAG, "adding successors for gamestate: " + previousState.toCSV());
+        	CoreLog.d(TAG, "adding successors for gamestate: " + previousState.toCSV());
         }
         
         /*for each legal move, check out the gamestate that would
         result from making that move. */
-        for(GameState.Direction nextMove : legalMoves){
+        for(GameState.Direction nextMove : MoveTable.MOVE_ORDER){
+            if(!MoveTable.hasMove(legalMoves, nextMove)) continue;
 
-        	if(debug_print_everything) Log.d(TAG, "trying move: " + nextMove);
+        	if(debug_print_everything) CoreLog.d(TAG, "trying move: " + nextMove);
         	
             //makeMove returns the state that results from making that move
             GameState resultantState = previousState.makeMove(nextMove);
@@ -207,20 +271,54 @@ public class Solver {
             
             //Skip this state if we've already seen it
 			if(mVisitedStates.contains(resultantState)){
-            	if(debug_print_everything){Log.d(TAG, "resultant state has already been seen, skipping: " + csv);}
+            	mMetrics.duplicate();
+            	if(debug_print_everything){CoreLog.d(TAG, "resultant state has already been seen, skipping: " + csv);}
                 continue;
             }
             else{
                 
-            	Node nextNode = new Node(node, nextMove);
+            	Node nextNode = new Node(node, nextMove, resultantState);
+            	mMetrics.nodeGenerated();
+
+            	//the tile that moved is now where the blank tile was
+            	int movedTile = resultantState.getByCell(previousBlankCell);
+            	nextNode.setEstimate(mHeuristic.estimateAfterMove(node.getEstimate(),
+            	        resultantState, movedTile, resultantState.getBlankCell(), previousBlankCell));
+            	mMetrics.heuristicEvaluated();
                 
                 if(debug_print_everything){
-					Log.d(TAG, "Adding successor path: " + nextNode.getMoveQueue().toString());
-					Log.d(TAG, "New node endState csv: " + csv);
+					CoreLog.d(TAG, "Adding successor path: " + nextNode.getMoveQueue().toString());
+					CoreLog.d(TAG, "New node endState csv: " + csv);
                 }
 
                 mPossibleSuccessors.add(nextNode);
             }
         }
+        mMetrics.openListSize(mPossibleSuccessors.size());
+    }
+
+    /**Write the node and what addSuccessors() will do with each of its successors
+     * to the trace. Done apart from addSuccessors() so an untraced search only
+     * checks for a trace once per node. Nothing is visited during an expansion,
+     * so the successors come out the same both times.
+     */
+    private void traceSuccessors(Node node, int legalMoves){
+        final GameState previousState = node.getEndState();
+        final int previousBlankCell = previousState.getBlankCell();
+        mTrace.expand(node);
+
+        for(GameState.Direction nextMove : MoveTable.MOVE_ORDER){
+            if(!MoveTable.hasMove(legalMoves, nextMove)) continue;
+
+            GameState resultantState = previousState.makeMove(nextMove);
+            if(mVisitedStates.contains(resultantState)){
+                mTrace.duplicate(nextMove);
+                continue;
+            }
+
+            int movedTile = resultantState.getByCell(previousBlankCell);
+            mTrace.child(nextMove, mHeuristic.estimateAfterMove(node.getEstimate(),
+                    resultantState, movedTile, resultantState.getBlankCell(), previousBlankCell));
+        }
     }
 }
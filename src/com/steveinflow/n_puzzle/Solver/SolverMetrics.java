@@ -0,0 +1,132 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * What the solvers did, over every goal solved in the process, split by the kind
+ * of goal (BlankToTarget, TargetToDestination, SolveLast6, ...) so it's clear which
+ * kinds take up the solving time. Each kind has its totals and a histogram of how
+ * long its goals took.
+ *
+ * Whatever runs a GoalSolver passes it to record() when solveGoal() returns. Each
+ * goal's SearchMetrics then goes to the listeners, on the solver's thread.
+ */
+public class SolverMetrics {
+
+    /**Told about each goal as it finishes*/
+    public interface Listener {
+        public void goalFinished(SearchMetrics metrics);
+    }
+
+    private static SolverMetrics sMetrics;
+
+    /**Totals for one kind of goal*/
+    private static class GoalTypeTotals {
+        long goals;
+        long solved;
+        long nodesExpanded;
+        long nodesGenerated;
+        long duplicates;
+        long heuristicEvaluations;
+        long peakOpenList;
+        long peakVisitedStates;
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    private final LinkedHashMap<String, GoalTypeTotals> mTotals = new LinkedHashMap<String, GoalTypeTotals>();
+    private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<Listener>();
+
+    /**@return the metrics shared by every solver in the process*/
+    public static synchronized SolverMetrics getMetrics(){
+        if(sMetrics == null){
+            sMetrics = new SolverMetrics();
+        }
+        return sMetrics;
+    }
+
+    private SolverMetrics(){
+    }
+
+    public void addListener(Listener listener){
+        mListeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener){
+        mListeners.remove(listener);
+    }
+
+    /**Record a goal the solver has finished with
+     * @param solver the solver, after solveGoal() has returned
+     * @param result what solveGoal() returned
+     * @param elapsedNanos how long solveGoal() took
+     */
+    public void record(GoalSolver solver, Node result, long elapsedNanos){
+        SearchMetrics metrics = solver.getMetrics();
+        metrics.finish(elapsedNanos, solver.getStatus(), result);
+
+        synchronized(this){
+            GoalTypeTotals totals = mTotals.get(metrics.getGoalType());
+            if(totals == null){
+                totals = new GoalTypeTotals();
+                mTotals.put(metrics.getGoalType(), totals);
+            }
+
+            totals.goals++;
+            if(metrics.getStatus() == Solver.Status.SOLVED) totals.solved++;
+            totals.nodesExpanded += metrics.getNodesExpanded();
+            totals.nodesGenerated += metrics.getNodesGenerated();
+            totals.duplicates += metrics.getDuplicates();
+            totals.heuristicEvaluations += metrics.getHeuristicEvaluations();
+            totals.peakOpenList = Math.max(totals.peakOpenList, metrics.getPeakOpenList());
+            totals.peakVisitedStates = Math.max(totals.peakVisitedStates, metrics.getPeakVisitedStates());
+            totals.latency.record(elapsedNanos / 1000);
+        }
+
+        for(Listener listener : mListeners){
+            listener.goalFinished(metrics);
+        }
+    }
+
+    /**@return a copy of the latencies of goals of this kind so far, or null if there
+     * haven't been any. Solvers keep recording, so the copy is what's safe to read.*/
+    public synchronized LatencyHistogram getLatency(String goalType){
+        GoalTypeTotals totals = mTotals.get(goalType);
+        return (totals == null) ? null : new LatencyHistogram(totals.latency);
+    }
+
+    /**Forget everything recorded so far. Listeners stay.*/
+    public synchronized void reset(){
+        mTotals.clear();
+    }
+
+    /**@return the totals for each kind of goal as a JSON object, keyed by goal type.
+     * Peaks are the largest of any one goal's.*/
+    public synchronized String toJSON(){
+        StringBuilder builder = new StringBuilder();
+        builder.append('{');
+
+        boolean first = true;
+        for(Map.Entry<String, GoalTypeTotals> entry : mTotals.entrySet()){
+            GoalTypeTotals totals = entry.getValue();
+            if(!first) builder.append(',');
+            first = false;
+
+            builder.append('"').append(entry.getKey()).append("\":{")
+                    .append("\"goals\":").append(totals.goals)
+                    .append(",\"solved\":").append(totals.solved)
+                    .append(",\"nodesExpanded\":").append(totals.nodesExpanded)
+                    .append(",\"nodesGenerated\":").append(totals.nodesGenerated)
+                    .append(",\"duplicates\":").append(totals.duplicates)
+                    .append(",\"heuristicEvaluations\":").append(totals.heuristicEvaluations)
+                    .append(",\"peakOpenList\":").append(totals.peakOpenList)
+                    .append(",\"peakVisitedStates\":").append(totals.peakVisitedStates)
+                    .append(",\"latency\":");
+            totals.latency.appendJSON(builder);
+            builder.append('}');
+        }
+        builder.append('}');
+        return builder.toString();
+    }
+}
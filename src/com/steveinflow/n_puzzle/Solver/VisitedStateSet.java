@@ -0,0 +1,210 @@
+package com.steveinflow.n_puzzle.Solver;
+
+import java.util.HashMap;
+
+import com.steveinflow.n_puzzle.GameState.GameState;
+
+/**The set of GameStates the solver has already expanded.
+ *
+ * A HashSet<GameState> costs an entry object, the GameState and its arrays for
+ * every state. This set only keeps each state's packed key (see
+ * GameState.getPackedKeyLow()) in parallel long arrays with open addressing and
+ * linear probing, which is 8 or 16 bytes a slot. The key (0, 0) never belongs to
+ * a board, so it marks an empty slot.
+ *
+ * The arrays double as they fill up, but never past the memory limit given to the
+ * constructor. Once the set is full, isFull() returns true and the solver should
+ * give up rather than run out of memory.
+ *
+ * A set made to keep costs also holds the fewest moves each state was reached in,
+ * in a parallel short array, for searches that look at a state again when they
+ * find a shorter way to it.
+ *
+ * Boards too big for a packed key fall back to a HashMap<GameState, Integer>.
+ */
+public class VisitedStateSet {
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    /**Grow (or report full) once this fraction of the slots is used*/
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**getCost() returns this for a state that isn't in the set*/
+    public static final int NOT_FOUND = Integer.MAX_VALUE;
+
+    private final boolean mTwoLongKeys;
+    private final boolean mKeepCosts;
+    private final int mMaxCapacity;
+
+    private long[] mLow;
+    private long[] mHigh;
+    /**The fewest moves each slot's state was reached in, if costs are kept*/
+    private short[] mCosts;
+    private int mMask;
+    private int mSize;
+    private int mThreshold;
+
+    /**Only used for boards without a packed key. The values are the costs, if kept.*/
+    private HashMap<GameState, Integer> mFallback;
+
+    /**
+     * @param sampleState any state of the size that will be stored
+     * @param maxBytes the most memory the key arrays may use
+     */
+    public VisitedStateSet(GameState sampleState, long maxBytes){
+        this(sampleState, maxBytes, false);
+    }
+
+    /**
+     * @param sampleState any state of the size that will be stored
+     * @param maxBytes the most memory the key and cost arrays may use
+     * @param keepCosts true to keep the fewest moves each state was reached in
+     *      (see add(GameState, int) and getCost())
+     */
+    public VisitedStateSet(GameState sampleState, long maxBytes, boolean keepCosts){
+        mKeepCosts = keepCosts;
+
+        if(!sampleState.hasPackedKey()){
+            mFallback = new HashMap<GameState, Integer>();
+            mTwoLongKeys = false;
+            mMaxCapacity = 0;
+            return;
+        }
+
+        mTwoLongKeys = sampleState.getNumDivisions() > GameState.MAX_PACKED_DIVISIONS;
+        int bytesPerSlot = (mTwoLongKeys ? 16 : 8) + (keepCosts ? 2 : 0);
+
+        //largest power of two number of slots that fits in the limit
+        int maxCapacity = INITIAL_CAPACITY;
+        while(maxCapacity < (1 << 30) && (long)maxCapacity * 2 * bytesPerSlot <= maxBytes){
+            maxCapacity *= 2;
+        }
+        mMaxCapacity = maxCapacity;
+
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**@return true if the state was added, false if it was already in the set.
+     * Check isFull() first: a full set won't take new states.*/
+    public boolean add(GameState state){
+        return add(state, 0);
+    }
+
+    /**Add the state, reached in the given number of moves. If it's already in the
+     * set, its cost is replaced.
+     * @return true if the state was added, false if it was already in the set.
+     * Check isFull() first: a full set won't take new states.*/
+    public boolean add(GameState state, int cost){
+        if(mFallback != null) return mFallback.put(state, cost) == null;
+
+        long low = state.getPackedKeyLow();
+        long high = mTwoLongKeys ? state.getPackedKeyHigh() : 0L;
+
+        int slot = findSlot(low, high);
+        if(mLow[slot] != 0L || (mTwoLongKeys && mHigh[slot] != 0L)){
+            if(mKeepCosts) mCosts[slot] = (short)cost;
+            return false;
+        }
+        if(mSize >= mThreshold){
+            if(mLow.length >= mMaxCapacity){
+                throw new IllegalStateException("VisitedStateSet is full");
+            }
+            grow();
+            slot = findSlot(low, high);
+        }
+
+        mLow[slot] = low;
+        if(mTwoLongKeys) mHigh[slot] = high;
+        if(mKeepCosts) mCosts[slot] = (short)cost;
+        mSize++;
+        return true;
+    }
+
+    public boolean contains(GameState state){
+        if(mFallback != null) return mFallback.containsKey(state);
+
+        long low = state.getPackedKeyLow();
+        long high = mTwoLongKeys ? state.getPackedKeyHigh() : 0L;
+
+        int slot = findSlot(low, high);
+        return mLow[slot] != 0L || (mTwoLongKeys && mHigh[slot] != 0L);
+    }
+
+    /**Only for a set that keeps costs.
+     * @return the fewest moves the state was added with, or NOT_FOUND if it isn't in the set*/
+    public int getCost(GameState state){
+        if(!mKeepCosts) throw new IllegalStateException("VisitedStateSet doesn't keep costs");
+
+        if(mFallback != null){
+            Integer cost = mFallback.get(state);
+            return (cost == null) ? NOT_FOUND : cost;
+        }
+
+        long low = state.getPackedKeyLow();
+        long high = mTwoLongKeys ? state.getPackedKeyHigh() : 0L;
+
+        int slot = findSlot(low, high);
+        if(mLow[slot] == 0L && (!mTwoLongKeys || mHigh[slot] == 0L)) return NOT_FOUND;
+        return mCosts[slot];
+    }
+
+    /**@return true if the set has reached its memory limit and can't take any more states*/
+    public boolean isFull(){
+        if(mFallback != null) return false;
+        return mSize >= mThreshold && mLow.length >= mMaxCapacity;
+    }
+
+    public int size(){
+        if(mFallback != null) return mFallback.size();
+        return mSize;
+    }
+
+    /**@return the slot holding the key, or the empty slot where it would go*/
+    private int findSlot(long low, long high){
+        int slot = hash(low, high) & mMask;
+
+        while(true){
+            long slotLow = mLow[slot];
+            long slotHigh = mTwoLongKeys ? mHigh[slot] : 0L;
+
+            if(slotLow == low && slotHigh == high) return slot;
+            if(slotLow == 0L && slotHigh == 0L) return slot;
+
+            slot = (slot + 1) & mMask;
+        }
+    }
+
+    /**Mix the bits of the key so that similar boards land in different slots*/
+    private static int hash(long low, long high){
+        long h = low ^ (high * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int)h;
+    }
+
+    private void allocate(int capacity){
+        mLow = new long[capacity];
+        if(mTwoLongKeys) mHigh = new long[capacity];
+        if(mKeepCosts) mCosts = new short[capacity];
+        mMask = capacity - 1;
+        mThreshold = (int)(capacity * LOAD_FACTOR);
+    }
+
+    private void grow(){
+        long[] oldLow = mLow;
+        long[] oldHigh = mHigh;
+        short[] oldCosts = mCosts;
+
+        allocate(oldLow.length * 2);
+
+        for(int i = 0; i < oldLow.length; i++){
+            long low = oldLow[i];
+            long high = mTwoLongKeys ? oldHigh[i] : 0L;
+            if(low == 0L && high == 0L) continue;
+
+            int slot = findSlot(low, high);
+            mLow[slot] = low;
+            if(mTwoLongKeys) mHigh[slot] = high;
+            if(mKeepCosts) mCosts[slot] = oldCosts[i];
+        }
+    }
+}